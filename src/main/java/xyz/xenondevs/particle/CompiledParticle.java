@@ -0,0 +1,315 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
+
+import java.nio.DoubleBuffer;
+
+import static xyz.xenondevs.particle.ParticleConstants.PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY;
+
+/**
+ * An immutable particle template with every NMS representation already
+ * resolved. Only the location changes between packets created by the same
+ * {@link CompiledParticle}, so effects that display the same particle at a
+ * lot of locations (e.g. trails) should compile it once and reuse it.
+ * <p>
+ * Instances are created via {@link ParticlePacket#compile()} or
+ * {@link ParticleBuilder#compile()}. Custom {@link ParticleDataCodec ParticleDataCodecs}
+ * create them directly.
+ *
+ * @author ByteZ
+ * @see ParticlePacket#compile()
+ * @see ParticleBuilder#compile()
+ */
+public final class CompiledParticle {
+    
+    /**
+     * The {@link ParticleEffect} which will be displayed by the client.
+     */
+    private final ParticleEffect particle;
+    /**
+     * The resolved ParticleParam (1.13+) or EnumParticle (pre 1.13) of the packet.
+     */
+    private final Object param;
+    /**
+     * The resolved offsetX of the packet.
+     *
+     * @see ParticlePacket#getOffsetX()
+     */
+    private final float offsetX;
+    /**
+     * The resolved offsetY of the packet.
+     *
+     * @see ParticlePacket#getOffsetY()
+     */
+    private final float offsetY;
+    /**
+     * The resolved offsetZ of the packet.
+     *
+     * @see ParticlePacket#getOffsetZ()
+     */
+    private final float offsetZ;
+    /**
+     * The resolved speed of the packet.
+     *
+     * @see ParticlePacket#getSpeed()
+     */
+    private final float speed;
+    /**
+     * The resolved amount of the packet.
+     *
+     * @see ParticlePacket#getAmount()
+     */
+    private final int amount;
+    /**
+     * The extra data of pre 1.13 packets. Ignored on newer versions.
+     */
+    private final int[] data;
+    
+    /**
+     * Creates a new {@link CompiledParticle}. The given values have to be
+     * fully resolved for the current version.
+     *
+     * @param particle the {@link ParticleEffect} that should be sent.
+     * @param param    the resolved ParticleParam or EnumParticle.
+     * @param offsetX  the resolved offsetX.
+     * @param offsetY  the resolved offsetY.
+     * @param offsetZ  the resolved offsetZ.
+     * @param speed    the resolved speed.
+     * @param amount   the resolved amount.
+     * @param data     the extra data of pre 1.13 packets.
+     */
+    public CompiledParticle(ParticleEffect particle, Object param, float offsetX, float offsetY, float offsetZ, float speed, int amount, int[] data) {
+        this.particle = particle;
+        this.param = param;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.offsetZ = offsetZ;
+        this.speed = speed;
+        this.amount = amount;
+        this.data = data;
+    }
+    
+    /**
+     * Gets the {@link ParticleEffect} that will be displayed by the client.
+     *
+     * @return The {@link ParticleEffect} which should be displayed by the client.
+     */
+    public ParticleEffect getParticle() {
+        return particle;
+    }
+    
+    /**
+     * Gets the resolved ParticleParam (1.13+) or EnumParticle (pre 1.13).
+     *
+     * @return the resolved NMS particle object.
+     */
+    public Object getParam() {
+        return param;
+    }
+    
+    /**
+     * Gets the resolved offsetX value of the particle.
+     *
+     * @return the offsetX value.
+     */
+    public float getOffsetX() {
+        return offsetX;
+    }
+    
+    /**
+     * Gets the resolved offsetY value of the particle.
+     *
+     * @return the offsetY value.
+     */
+    public float getOffsetY() {
+        return offsetY;
+    }
+    
+    /**
+     * Gets the resolved offsetZ value of the particle.
+     *
+     * @return the offsetZ value.
+     */
+    public float getOffsetZ() {
+        return offsetZ;
+    }
+    
+    /**
+     * Gets the resolved speed of the particle.
+     *
+     * @return the speed of the particle.
+     */
+    public float getSpeed() {
+        return speed;
+    }
+    
+    /**
+     * Gets the resolved amount of the particle.
+     *
+     * @return the amount of particles to be spawned.
+     */
+    public int getAmount() {
+        return amount;
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet at the given {@link Location}.
+     *
+     * @param location the {@link Location} the particle should be displayed at.
+     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
+     */
+    public Object createPacket(Location location) {
+        return createPacket(location.getX(), location.getY(), location.getZ());
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet at the given coordinates.
+     * Please note that the packet doesn't contain the world, so it should only be
+     * sent to {@link Player Players} in the correct world.
+     * <p>
+     * The created packet is counted by the {@link ParticleMetrics}, but the time spent
+     * creating it isn't measured. Display calls and {@link #createPackets(double[]) batches}
+     * are timed instead.
+     *
+     * @param x the x coordinate the particle should be displayed at.
+     * @param y the y coordinate the particle should be displayed at.
+     * @param z the z coordinate the particle should be displayed at.
+     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
+     */
+    public Object createPacket(double x, double y, double z) {
+        return createPacket(x, y, z, 0);
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet at the given {@link Location} for a
+     * display call and records the time spent since the given start. Used by the display
+     * methods of {@link ParticleEffect} and {@link ParticleBuilder}, which start the timer
+     * before the particle is compiled.
+     *
+     * @param location the {@link Location} the particle should be displayed at.
+     * @param start    the value returned by {@link ParticleMetrics#startTimer()}
+     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
+     */
+    Object createPacket(Location location, long start) {
+        return createPacket(location.getX(), location.getY(), location.getZ(), start);
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet at the given coordinates and records it.
+     *
+     * @param x     the x coordinate the particle should be displayed at.
+     * @param y     the y coordinate the particle should be displayed at.
+     * @param z     the z coordinate the particle should be displayed at.
+     * @param start the value returned by {@link ParticleMetrics#startTimer()} or 0 if the creation shouldn't be timed
+     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
+     */
+    private Object createPacket(double x, double y, double z, long start) {
+        Object packet = newPacket(x, y, z);
+        if (packet == null)
+            ParticleMetrics.getMetrics().recordCreated(particle, 0, 1, start);
+        else
+            ParticleMetrics.getMetrics().recordCreated(particle, 1, 0, start);
+        return packet;
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet for every point in the given array.
+     * The array contains the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     *
+     * @param xyz the coordinates of the points.
+     * @return an array with one PacketPlayOutWorldParticles per point.
+     * @see #createPackets(double[], int, int)
+     */
+    public Object[] createPackets(double[] xyz) {
+        return createPackets(xyz, 0, xyz.length / 3);
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet for every point in the given range of the array.
+     * The array contains the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     *
+     * @param xyz    the coordinates of the points.
+     * @param offset the index of the x coordinate of the first point.
+     * @param count  the amount of points.
+     * @return an array with one PacketPlayOutWorldParticles per point.
+     * @throws IndexOutOfBoundsException if the array doesn't contain enough coordinates.
+     */
+    public Object[] createPackets(double[] xyz, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count * 3 > xyz.length)
+            throw new IndexOutOfBoundsException("Not enough coordinates for " + count + " points at offset " + offset);
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        long start = metrics.startTimer();
+        Object[] packets = new Object[count];
+        int failed = 0;
+        for (int i = 0, index = offset; i < count; ++i, index += 3)
+            if ((packets[i] = newPacket(xyz[index], xyz[index + 1], xyz[index + 2])) == null)
+                ++failed;
+        metrics.recordCreated(particle, count - failed, failed, start);
+        return packets;
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet for every point in the remaining
+     * elements of the given {@link DoubleBuffer}. The buffer contains the coordinates of the
+     * points in the order {@code x0, y0, z0, x1, y1, z1, ...}. The position of the buffer
+     * isn't changed.
+     *
+     * @param xyz the coordinates of the points.
+     * @return an array with one PacketPlayOutWorldParticles per point.
+     */
+    public Object[] createPackets(DoubleBuffer xyz) {
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        long start = metrics.startTimer();
+        int count = xyz.remaining() / 3;
+        Object[] packets = new Object[count];
+        int failed = 0;
+        for (int i = 0, index = xyz.position(); i < count; ++i, index += 3)
+            if ((packets[i] = newPacket(xyz.get(index), xyz.get(index + 1), xyz.get(index + 2))) == null)
+                ++failed;
+        metrics.recordCreated(particle, count - failed, failed, start);
+        return packets;
+    }
+    
+    /**
+     * Creates a NMS PacketPlayOutWorldParticles packet without recording any metrics.
+     *
+     * @param x the x coordinate the particle should be displayed at.
+     * @param y the y coordinate the particle should be displayed at.
+     * @param z the z coordinate the particle should be displayed at.
+     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
+     */
+    private Object newPacket(double x, double y, double z) {
+        try {
+            return (Object) PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY.invokeExact(param, x, y, z, offsetX, offsetY, offsetZ, speed, amount, data);
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+    
+}
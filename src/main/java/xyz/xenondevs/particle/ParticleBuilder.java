@@ -24,13 +24,17 @@
 
 package xyz.xenondevs.particle;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 import xyz.xenondevs.particle.data.ParticleData;
 import xyz.xenondevs.particle.data.color.RegularColor;
-import xyz.xenondevs.particle.utils.ReflectionUtils;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
+import xyz.xenondevs.particle.shape.Shape;
+import xyz.xenondevs.particle.utils.ParticleUtils;
+import xyz.xenondevs.particle.utils.RecipientRegistry;
+import xyz.xenondevs.particle.utils.SpatialPlayerIndex;
 
 import java.awt.*;
 import java.util.Arrays;
@@ -353,19 +357,56 @@ public class ParticleBuilder {
     public Object toPacket() {
         if (location == null)
             throw new IllegalStateException("Missing location of particle.");
-        if (this.particleData != null)
-            this.particleData.setEffect(this.particle);
-        ParticlePacket packet = new ParticlePacket(this.particle, this.offsetX, this.offsetY, this.offsetZ, this.speed, this.amount, this.particleData);
-        return packet.createPacket(this.location);
+        CompiledParticle compiled = compile();
+        return compiled == null ? null : compiled.createPacket(this.location);
+    }
+
+    /**
+     * Creates the packet of a display call. Unlike {@link #toPacket()}, the time spent
+     * compiling the particle and creating the packet is recorded in the {@link ParticleMetrics}.
+     *
+     * @return the packet or {@code null} when something goes wrong.
+     * @throws IllegalStateException if the location field isn't set yet.
+     */
+    private Object createDisplayPacket() {
+        if (location == null)
+            throw new IllegalStateException("Missing location of particle.");
+        long start = ParticleMetrics.getMetrics().startTimer();
+        CompiledParticle compiled = compile();
+        return compiled == null ? null : compiled.createPacket(this.location, start);
+    }
+
+    /**
+     * Compiles the current values into a {@link CompiledParticle} that can create
+     * packets at any location. Changes made to the builder afterwards don't
+     * affect the returned instance.
+     *
+     * @return the new {@link CompiledParticle} or {@code null} when something goes wrong.
+     * @see CompiledParticle
+     */
+    public CompiledParticle compile() {
+        ParticleData data = this.particleData == null ? null : this.particleData.bind(this.particle);
+        ParticlePacket packet = new ParticlePacket(this.particle, this.offsetX, this.offsetY, this.offsetZ, this.speed, this.amount, data);
+        return packet.compile();
     }
 
     /**
      * Displays the given particle to all players.
      */
     public void display() {
-        Object packet = toPacket();
-        Objects.requireNonNull(location.getWorld()).getPlayers()
-            .forEach(p -> ReflectionUtils.sendPacket(p, packet));
+        Object packet = createDisplayPacket();
+        ParticleUtils.sendPacket(particle, packet, RecipientRegistry.getRegistry().getPlayers(Objects.requireNonNull(location.getWorld())), null);
+    }
+
+    /**
+     * Displays the given particle to all players in the given radius.
+     * The players are looked up in the {@link SpatialPlayerIndex}.
+     *
+     * @param radius the radius around the location in which players should see the particle.
+     */
+    public void display(double radius) {
+        Object packet = createDisplayPacket();
+        ParticleUtils.sendPacket(particle, packet, SpatialPlayerIndex.getIndex().getPlayersInRadius(location, radius), null);
     }
 
     /**
@@ -384,11 +425,8 @@ public class ParticleBuilder {
      *               specific {@link Player Players}.
      */
     public void display(Predicate<Player> filter) {
-        Object packet = toPacket();
-        Bukkit.getOnlinePlayers()
-            .stream()
-            .filter(p -> filter.test(p) && p.getWorld().equals(location.getWorld()))
-            .forEach(p -> ReflectionUtils.sendPacket(p, packet));
+        Object packet = createDisplayPacket();
+        ParticleUtils.sendPacket(particle, packet, RecipientRegistry.getRegistry().getPlayers(location.getWorld()), filter);
     }
 
     /**
@@ -397,10 +435,63 @@ public class ParticleBuilder {
      * @param players a list of players that should receive the particle packet.
      */
     public void display(Collection<? extends Player> players) {
-        Object packet = toPacket();
-        players.stream()
-            .filter(p -> p.getWorld().equals(location.getWorld()))
-            .forEach(p -> ReflectionUtils.sendPacket(p, packet));
+        Object packet = createDisplayPacket();
+        World world = location.getWorld();
+        ParticleUtils.sendPacket(particle, packet, players, p -> p.getWorld().equals(world));
+    }
+
+    /**
+     * Displays the given particle at every point of the given array to all players in the
+     * given {@link World}. The particle is only compiled once and all packets are sent as
+     * one batch per player. The location of the builder is ignored.
+     *
+     * @param world the {@link World} the points are in.
+     * @param xyz   the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     */
+    public void display(World world, double[] xyz) {
+        CompiledParticle compiled = compile();
+        if (compiled != null)
+            ParticleUtils.sendBatched(particle, compiled.createPackets(xyz), RecipientRegistry.getRegistry().getPlayers(world));
+    }
+
+    /**
+     * Displays the given particle at every point of the given array to the players in the
+     * {@link Collection}. The particle is only compiled once and all packets are sent as one
+     * batch per player. The location of the builder is ignored and the players have to be in
+     * the world of the points.
+     *
+     * @param xyz     the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     * @param players a list of players that should receive the particle packets.
+     */
+    public void display(double[] xyz, Collection<? extends Player> players) {
+        CompiledParticle compiled = compile();
+        if (compiled != null)
+            ParticleUtils.sendBatched(particle, compiled.createPackets(xyz), players);
+    }
+
+    /**
+     * Displays the given particle at every point of the {@link Shape} to all players in the
+     * world of the builder. The shape is scaled and centered at the location of the builder.
+     *
+     * @param shape the {@link Shape} that should be displayed.
+     * @param scale the scale of the shape. (e.g. the radius of unit circles and spheres)
+     * @see xyz.xenondevs.particle.shape.Shapes
+     */
+    public void display(Shape shape, double scale) {
+        display(location.getWorld(), shape.toXYZ(location.getX(), location.getY(), location.getZ(), scale));
+    }
+
+    /**
+     * Displays the given particle at every point of the {@link Shape} to the players in the
+     * {@link Collection}. The shape is scaled and centered at the location of the builder.
+     *
+     * @param shape   the {@link Shape} that should be displayed.
+     * @param scale   the scale of the shape. (e.g. the radius of unit circles and spheres)
+     * @param players a list of players that should receive the particle packets.
+     * @see xyz.xenondevs.particle.shape.Shapes
+     */
+    public void display(Shape shape, double scale, Collection<? extends Player> players) {
+        display(shape.toXYZ(location.getX(), location.getY(), location.getZ(), scale), players);
     }
 
 }
@@ -25,7 +25,11 @@
 package xyz.xenondevs.particle;
 
 import org.bukkit.inventory.ItemStack;
+import xyz.xenondevs.particle.metrics.ParticleEvents;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -123,6 +127,34 @@ public final class ParticleConstants {
      * Represents the PlayerConnection class.
      */
     public static final Class PLAYER_CONNECTION_CLASS;
+    /**
+     * Represents the NetworkManager class.
+     */
+    public static final Class NETWORK_MANAGER_CLASS;
+    /**
+     * Represents the PacketEncoder class.
+     */
+    public static final Class PACKET_ENCODER_CLASS;
+    /**
+     * Represents the netty Channel interface.
+     */
+    public static final Class CHANNEL_CLASS;
+    /**
+     * Represents the netty ChannelPipeline interface.
+     */
+    public static final Class CHANNEL_PIPELINE_CLASS;
+    /**
+     * Represents the netty ChannelHandlerContext interface.
+     */
+    public static final Class CHANNEL_HANDLER_CONTEXT_CLASS;
+    /**
+     * Represents the netty ByteBufAllocator interface.
+     */
+    public static final Class BYTE_BUF_ALLOCATOR_CLASS;
+    /**
+     * Represents the netty ByteBuf class.
+     */
+    public static final Class BYTE_BUF_CLASS;
     /**
      * Represents the CraftEntity class.
      */
@@ -135,6 +167,10 @@ public final class ParticleConstants {
      * Represents the CraftItemStack class.
      */
     public static final Class CRAFT_ITEM_STACK_CLASS;
+    /**
+     * Represents the CraftBlockData class.
+     */
+    public static final Class CRAFT_BLOCK_DATA_CLASS;
     /**
      * Represents the ParticleParam class.
      */
@@ -194,6 +230,70 @@ public final class ParticleConstants {
      * Represents the CraftItemStack#asNMSCopy(); method.
      */
     public static final Method CRAFT_ITEM_STACK_AS_NMS_COPY_METHOD;
+    /**
+     * Represents the CraftBlockData#getState(); method.
+     */
+    public static final Method CRAFT_BLOCK_DATA_GET_STATE_METHOD;
+    /**
+     * Represents the PacketEncoder#encode(); method.
+     */
+    public static final Method PACKET_ENCODER_ENCODE_METHOD;
+    /**
+     * Represents the Channel#pipeline(); method.
+     */
+    public static final Method CHANNEL_PIPELINE_METHOD;
+    /**
+     * Represents the Channel#alloc(); method.
+     */
+    public static final Method CHANNEL_ALLOC_METHOD;
+    /**
+     * Represents the Channel#write(); method.
+     */
+    public static final Method CHANNEL_WRITE_METHOD;
+    /**
+     * Represents the Channel#flush(); method.
+     */
+    public static final Method CHANNEL_FLUSH_METHOD;
+    /**
+     * Represents the Channel#writeAndFlush(); method.
+     */
+    public static final Method CHANNEL_WRITE_AND_FLUSH_METHOD;
+    /**
+     * Represents the Channel#eventLoop(); method.
+     */
+    public static final Method CHANNEL_EVENT_LOOP_METHOD;
+    /**
+     * Represents the ChannelPipeline#context(); method.
+     */
+    public static final Method CHANNEL_PIPELINE_CONTEXT_METHOD;
+    /**
+     * Represents the ChannelHandlerContext#handler(); method.
+     */
+    public static final Method CHANNEL_HANDLER_CONTEXT_HANDLER_METHOD;
+    /**
+     * Represents the ByteBufAllocator#buffer(); method.
+     */
+    public static final Method BYTE_BUF_ALLOCATOR_BUFFER_METHOD;
+    /**
+     * Represents the ByteBuf#retainedDuplicate(); method. Only available on netty 4.1+.
+     */
+    public static final Method BYTE_BUF_RETAINED_DUPLICATE_METHOD;
+    /**
+     * Represents the ByteBuf#duplicate(); method.
+     */
+    public static final Method BYTE_BUF_DUPLICATE_METHOD;
+    /**
+     * Represents the ByteBuf#retain(); method.
+     */
+    public static final Method BYTE_BUF_RETAIN_METHOD;
+    /**
+     * Represents the ByteBuf#release(); method.
+     */
+    public static final Method BYTE_BUF_RELEASE_METHOD;
+    /**
+     * Represents the ByteBuf#readableBytes(); method.
+     */
+    public static final Method BYTE_BUF_READABLE_BYTES_METHOD;
     
     /* ---------------- Fields ---------------- */
     
@@ -201,6 +301,14 @@ public final class ParticleConstants {
      * Represents the EntityPlayer#playerConnection field.
      */
     public static final Field ENTITY_PLAYER_PLAYER_CONNECTION_FIELD;
+    /**
+     * Represents the PlayerConnection#networkManager field.
+     */
+    public static final Field PLAYER_CONNECTION_NETWORK_MANAGER_FIELD;
+    /**
+     * Represents the NetworkManager#channel field.
+     */
+    public static final Field NETWORK_MANAGER_CHANNEL_FIELD;
     
     /* ---------------- Constructor ---------------- */
     
@@ -262,6 +370,30 @@ public final class ParticleConstants {
     public static final Constructor PARTICLE_PARAM_SCULK_CHARGE_CONSTRUCTOR;
     
     
+    /* ---------------- Method handles ---------------- */
+    
+    /**
+     * The {@link MethodType} of the {@link #PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY}.
+     * <p>
+     * {@code (Object param, double x, double y, double z, float offsetX, float offsetY, float offsetZ, float speed, int amount, int[] data)Object}
+     */
+    public static final MethodType PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY_TYPE = MethodType.methodType(Object.class,
+        Object.class, double.class, double.class, double.class, float.class, float.class, float.class, float.class, int.class, int[].class);
+    /**
+     * Represents the PacketPlayOutWorldParticles constructor adapted to the
+     * {@link #PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY_TYPE version independent signature}.
+     * The long distance flag is always bound to {@code true}, the coordinates are
+     * narrowed to floats on pre 1.15 servers and the data array is dropped on 1.13+
+     * servers.
+     */
+    public static final MethodHandle PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY;
+    /**
+     * Represents the PlayerConnection#sendPacket(Packet); method adapted to
+     * {@code (Object connection, Object packet)void} so it can be invoked
+     * without allocating an argument array.
+     */
+    public static final MethodHandle PLAYER_CONNECTION_SEND_PACKET_HANDLE;
+    
     /* ---------------- Object constants ---------------- */
     
     /**
@@ -276,6 +408,7 @@ public final class ParticleConstants {
     /* ---------------- INIT ---------------- */
     
     static {
+        Object event = ParticleEvents.beginReflectionResolve();
         double version = MINECRAFT_VERSION;
         
         // Classes
@@ -299,9 +432,17 @@ public final class ParticleConstants {
         ENTITY_CLASS = getMappedClass("Entity");
         ENTITY_PLAYER_CLASS = getMappedClass("EntityPlayer");
         PLAYER_CONNECTION_CLASS = getMappedClass("PlayerConnection");
+        NETWORK_MANAGER_CLASS = getMappedClass("NetworkManager");
+        PACKET_ENCODER_CLASS = getMappedClass("PacketEncoder");
+        CHANNEL_CLASS = getClassSafe("io.netty.channel.Channel");
+        CHANNEL_PIPELINE_CLASS = getClassSafe("io.netty.channel.ChannelPipeline");
+        CHANNEL_HANDLER_CONTEXT_CLASS = getClassSafe("io.netty.channel.ChannelHandlerContext");
+        BYTE_BUF_ALLOCATOR_CLASS = getClassSafe("io.netty.buffer.ByteBufAllocator");
+        BYTE_BUF_CLASS = getClassSafe("io.netty.buffer.ByteBuf");
         CRAFT_ENTITY_CLASS = getCraftBukkitClass("entity.CraftEntity");
         CRAFT_PLAYER_CLASS = getCraftBukkitClass("entity.CraftPlayer");
         CRAFT_ITEM_STACK_CLASS = getCraftBukkitClass("inventory.CraftItemStack");
+        CRAFT_BLOCK_DATA_CLASS = getCraftBukkitClass("block.data.CraftBlockData");
         PARTICLE_PARAM_CLASS = getMappedClass("ParticleParam");
         PARTICLE_PARAM_REDSTONE_CLASS = getMappedClass("ParticleParamRedstone");
         PARTICLE_PARAM_DUST_COLOR_TRANSITION_CLASS = getMappedClass("ParticleParamDustColorTransition");
@@ -318,9 +459,27 @@ public final class ParticleConstants {
         CRAFT_PLAYER_GET_HANDLE_METHOD = getMethodOrNull(CRAFT_PLAYER_CLASS, "getHandle");
         BLOCK_GET_BLOCK_DATA_METHOD = getMappedMethod(BLOCK_CLASS, "Block.getBlockData");
         CRAFT_ITEM_STACK_AS_NMS_COPY_METHOD = getMethodOrNull(CRAFT_ITEM_STACK_CLASS, "asNMSCopy", ItemStack.class);
+        CRAFT_BLOCK_DATA_GET_STATE_METHOD = getMethodOrNull(CRAFT_BLOCK_DATA_CLASS, "getState");
+        PACKET_ENCODER_ENCODE_METHOD = getDeclaredMethodOrNull(PACKET_ENCODER_CLASS, "encode", CHANNEL_HANDLER_CONTEXT_CLASS, PACKET_CLASS, BYTE_BUF_CLASS);
+        CHANNEL_PIPELINE_METHOD = getMethodOrNull(CHANNEL_CLASS, "pipeline");
+        CHANNEL_ALLOC_METHOD = getMethodOrNull(CHANNEL_CLASS, "alloc");
+        CHANNEL_WRITE_METHOD = getMethodOrNull(CHANNEL_CLASS, "write", Object.class);
+        CHANNEL_FLUSH_METHOD = getMethodOrNull(CHANNEL_CLASS, "flush");
+        CHANNEL_WRITE_AND_FLUSH_METHOD = getMethodOrNull(CHANNEL_CLASS, "writeAndFlush", Object.class);
+        CHANNEL_EVENT_LOOP_METHOD = getMethodOrNull(CHANNEL_CLASS, "eventLoop");
+        CHANNEL_PIPELINE_CONTEXT_METHOD = getMethodOrNull(CHANNEL_PIPELINE_CLASS, "context", String.class);
+        CHANNEL_HANDLER_CONTEXT_HANDLER_METHOD = getMethodOrNull(CHANNEL_HANDLER_CONTEXT_CLASS, "handler");
+        BYTE_BUF_ALLOCATOR_BUFFER_METHOD = getMethodOrNull(BYTE_BUF_ALLOCATOR_CLASS, "buffer");
+        BYTE_BUF_RETAINED_DUPLICATE_METHOD = getMethodOrNull(BYTE_BUF_CLASS, "retainedDuplicate");
+        BYTE_BUF_DUPLICATE_METHOD = getMethodOrNull(BYTE_BUF_CLASS, "duplicate");
+        BYTE_BUF_RETAIN_METHOD = getMethodOrNull(BYTE_BUF_CLASS, "retain");
+        BYTE_BUF_RELEASE_METHOD = getMethodOrNull(BYTE_BUF_CLASS, "release");
+        BYTE_BUF_READABLE_BYTES_METHOD = getMethodOrNull(BYTE_BUF_CLASS, "readableBytes");
         
         // Fields
         ENTITY_PLAYER_PLAYER_CONNECTION_FIELD = getMappedField(ENTITY_PLAYER_CLASS, "EntityPlayer.playerConnection", false);
+        PLAYER_CONNECTION_NETWORK_MANAGER_FIELD = getFieldByTypeOrNull(PLAYER_CONNECTION_CLASS, NETWORK_MANAGER_CLASS);
+        NETWORK_MANAGER_CHANNEL_FIELD = getFieldByTypeOrNull(NETWORK_MANAGER_CLASS, CHANNEL_CLASS);
         
         // Constructors
         if (version < 13)
@@ -330,6 +489,18 @@ public final class ParticleConstants {
         else
             PACKET_PLAY_OUT_WORLD_PARTICLES_CONSTRUCTOR = getConstructorOrNull(PACKET_PLAY_OUT_WORLD_PARTICLES_CLASS, PARTICLE_PARAM_CLASS, boolean.class, double.class, double.class, double.class, float.class, float.class, float.class, float.class, int.class);
         
+        MethodHandle packetFactory = getConstructorHandleOrNull(PACKET_PLAY_OUT_WORLD_PARTICLES_CONSTRUCTOR);
+        if (packetFactory != null) {
+            packetFactory = MethodHandles.insertArguments(packetFactory, 1, true);
+            if (version >= 13)
+                packetFactory = MethodHandles.dropArguments(packetFactory, 9, int[].class);
+            packetFactory = MethodHandles.explicitCastArguments(packetFactory, PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY_TYPE);
+        }
+        PACKET_PLAY_OUT_WORLD_PARTICLES_FACTORY = packetFactory;
+        MethodHandle sendPacket = getMethodHandleOrNull(PLAYER_CONNECTION_SEND_PACKET_METHOD);
+        PLAYER_CONNECTION_SEND_PACKET_HANDLE = sendPacket == null ? null
+            : sendPacket.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        
         MINECRAFT_KEY_CONSTRUCTOR = getConstructorOrNull(MINECRAFT_KEY_CLASS, String.class);
         VECTOR_3FA_CONSTRUCTOR = getConstructorOrNull(VECTOR_3FA_CLASS, float.class, float.class, float.class);
         BLOCK_POSITION_CONSTRUCTOR = getConstructorOrNull(BLOCK_POSITION_CLASS, double.class, double.class, double.class);
@@ -373,6 +544,7 @@ public final class ParticleConstants {
                 ? getMappedField(REGISTRY_CLASS, "Registry.BlockRegistry", false)
                 : getMappedField(BUILT_IN_REGISTRIES_CLASS, "BuiltInRegistries.BlockRegistry", false),
             null);
+        ParticleEvents.commitReflectionResolve(event, "initializer", null, ParticleConstants.class.getName(), true);
     }
     
 }
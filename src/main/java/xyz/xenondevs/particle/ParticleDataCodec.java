@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle;
+
+import xyz.xenondevs.particle.data.ParticleData;
+
+/**
+ * Converts {@link ParticleData} into a {@link CompiledParticle}. Codecs are
+ * registered for a combination of {@link ParticleEffect} and data class in
+ * the {@link ParticleDataCodecs} registry.
+ *
+ * @author ByteZ
+ * @see ParticleDataCodecs
+ */
+@FunctionalInterface
+public interface ParticleDataCodec {
+    
+    /**
+     * Compiles the given {@link ParticlePacket} with its {@link ParticleData}.
+     *
+     * @param packet the {@link ParticlePacket} that should be compiled
+     * @param data   the {@link ParticleData} of the packet. Never {@code null}
+     * @return the {@link CompiledParticle} or {@code null} if the data can't be compiled.
+     */
+    CompiledParticle compile(ParticlePacket packet, ParticleData data);
+    
+}
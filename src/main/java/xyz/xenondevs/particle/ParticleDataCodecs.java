@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle;
+
+import xyz.xenondevs.particle.data.ParticleData;
+import xyz.xenondevs.particle.data.SculkChargeData;
+import xyz.xenondevs.particle.data.ShriekData;
+import xyz.xenondevs.particle.data.VibrationData;
+import xyz.xenondevs.particle.data.color.DustColorTransitionData;
+import xyz.xenondevs.particle.data.color.DustData;
+import xyz.xenondevs.particle.data.color.NoteColor;
+import xyz.xenondevs.particle.data.color.RegularColor;
+import xyz.xenondevs.particle.data.texture.BlockTexture;
+import xyz.xenondevs.particle.data.texture.ItemTexture;
+import xyz.xenondevs.particle.utils.ReflectionUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static xyz.xenondevs.particle.ParticleEffect.*;
+import static xyz.xenondevs.particle.PropertyType.*;
+
+/**
+ * A registry of {@link ParticleDataCodec ParticleDataCodecs} keyed by
+ * {@link ParticleEffect} and {@link ParticleData} class. The built-in codecs
+ * are resolved for the current minecraft version when this class is loaded,
+ * so compiling a packet only needs one table lookup and one codec call.
+ * <p>
+ * Custom {@link ParticleData} types can be supported by registering a codec
+ * via {@link #register(Class, ParticleDataCodec, ParticleEffect...)}. Data
+ * classes without a codec use the codecs of their closest registered superclass.
+ *
+ * @author ByteZ
+ * @see ParticleDataCodec
+ */
+public final class ParticleDataCodecs {
+    
+    /**
+     * Empty extra data used for every particle that doesn't need an int array.
+     * Shared because packets never modify it.
+     */
+    static final int[] NO_DATA = new int[0];
+    
+    /**
+     * Passes the NMS data as the ParticleParam of the packet.
+     */
+    public static final ParticleDataCodec GENERIC = (packet, data) -> {
+        Object param = data.getNMSData();
+        return param == null ? null : new CompiledParticle(packet.getParticle(), param,
+            packet.getOffsetX(), packet.getOffsetY(), packet.getOffsetZ(),
+            packet.getSpeed(), packet.getAmount(), NO_DATA);
+    };
+    /**
+     * Passes the NMS data as the ParticleParam (1.13+) or as the extra int array (pre 1.13) of the packet.
+     *
+     * @see PropertyType#REQUIRES_BLOCK
+     * @see PropertyType#REQUIRES_ITEM
+     */
+    public static final ParticleDataCodec TEXTURE = (packet, data) -> {
+        Object param = data.getNMSData();
+        if (param == null)
+            return null;
+        ParticleEffect effect = packet.getParticle();
+        boolean legacy = ReflectionUtils.MINECRAFT_VERSION < 13;
+        return new CompiledParticle(effect, legacy ? effect.getNMSObject() : param,
+            packet.getOffsetX(), packet.getOffsetY(), packet.getOffsetZ(),
+            packet.getSpeed(), packet.getAmount(), legacy ? (int[]) param : NO_DATA);
+    };
+    /**
+     * Sets the note of a {@link NoteColor} as the offsetX of the packet.
+     */
+    public static final ParticleDataCodec NOTE_COLOR = (packet, data) -> {
+        ParticleEffect effect = packet.getParticle();
+        return new CompiledParticle(effect, effect.getNMSObject(),
+            ((NoteColor) data).getRed(), 0f, 0f,
+            packet.getSpeed(), packet.getAmount(), NO_DATA);
+    };
+    /**
+     * Sets the RGB values of a {@link RegularColor} as the offsets of the packet.
+     */
+    public static final ParticleDataCodec OFFSET_COLOR = (packet, data) -> {
+        ParticleEffect effect = packet.getParticle();
+        RegularColor color = (RegularColor) data;
+        return new CompiledParticle(effect, effect.getNMSObject(),
+            (effect == REDSTONE && color.getRed() == 0 ? Float.MIN_NORMAL : color.getRed()), color.getGreen(), color.getBlue(),
+            1f, 0, NO_DATA);
+    };
+    
+    /**
+     * The registered codecs of each data class indexed by the {@link ParticleEffect#ordinal()}.
+     */
+    private static final Map<Class<?>, ParticleDataCodec[]> REGISTERED = new ConcurrentHashMap<>();
+    /**
+     * The codecs of each looked up data class. Data classes without registered codecs use
+     * the codecs of their closest registered superclass.
+     */
+    private static final Map<Class<?>, ParticleDataCodec[]> RESOLVED = new ConcurrentHashMap<>();
+    /**
+     * Used for data classes without any codecs.
+     */
+    private static final ParticleDataCodec[] NO_CODECS = new ParticleDataCodec[ParticleEffect.VALUES.size()];
+    
+    static {
+        double version = ReflectionUtils.MINECRAFT_VERSION;
+        for (ParticleEffect effect : ParticleEffect.VALUES) {
+            if (effect.getNMSObject() == null)
+                continue;
+            if (effect.hasProperty(REQUIRES_BLOCK))
+                register(BlockTexture.class, TEXTURE, effect);
+            if (effect.hasProperty(REQUIRES_ITEM))
+                register(ItemTexture.class, TEXTURE, effect);
+            if (effect.hasProperty(DUST))
+                register(DustData.class, version >= 13 ? GENERIC : OFFSET_COLOR, effect);
+            if (effect == NOTE)
+                register(NoteColor.class, NOTE_COLOR, effect);
+            else if (effect.hasProperty(COLORABLE)) {
+                boolean param = (version >= 17 && effect.hasProperty(DUST)) || (version >= 13 && effect == REDSTONE);
+                register(RegularColor.class, param ? GENERIC : OFFSET_COLOR, effect);
+            }
+        }
+        register(DustColorTransitionData.class, GENERIC, DUST_COLOR_TRANSITION);
+        register(VibrationData.class, GENERIC, VIBRATION);
+        register(ShriekData.class, GENERIC, SHRIEK);
+        register(SculkChargeData.class, GENERIC, SCULK_CHARGE);
+    }
+    
+    /**
+     * Private constructor because this is a registry class.
+     */
+    private ParticleDataCodecs() {
+    }
+    
+    /**
+     * Registers a {@link ParticleDataCodec} for the given data class and effects. Effects
+     * that aren't supported in the current minecraft version are ignored. Codecs should
+     * be registered before particles using the data class are displayed.
+     *
+     * @param type    the {@link ParticleData} class the codec handles
+     * @param codec   the {@link ParticleDataCodec} or {@code null} to remove the codec
+     * @param effects the {@link ParticleEffect ParticleEffects} the codec applies to
+     */
+    public static synchronized void register(Class<? extends ParticleData> type, ParticleDataCodec codec, ParticleEffect... effects) {
+        ParticleDataCodec[] codecs = REGISTERED.get(type);
+        codecs = codecs == null ? new ParticleDataCodec[NO_CODECS.length] : Arrays.copyOf(codecs, codecs.length);
+        for (ParticleEffect effect : effects)
+            if (effect.getNMSObject() != null)
+                codecs[effect.ordinal()] = codec;
+        REGISTERED.put(type, codecs);
+        RESOLVED.clear();
+    }
+    
+    /**
+     * Gets the {@link ParticleDataCodec} for the given effect and data class.
+     *
+     * @param effect the {@link ParticleEffect} that should be displayed
+     * @param type   the class of the {@link ParticleData}
+     * @return the {@link ParticleDataCodec} or {@code null} if the data isn't supported by the effect.
+     */
+    public static ParticleDataCodec getCodec(ParticleEffect effect, Class<? extends ParticleData> type) {
+        ParticleDataCodec[] codecs = RESOLVED.get(type);
+        if (codecs == null)
+            codecs = RESOLVED.computeIfAbsent(type, ParticleDataCodecs::resolve);
+        return codecs[effect.ordinal()];
+    }
+    
+    /**
+     * Resolves the codecs of a data class by searching the closest class
+     * in its hierarchy that has registered codecs.
+     *
+     * @param type the class of the {@link ParticleData}
+     * @return the resolved codecs indexed by the {@link ParticleEffect#ordinal()}.
+     */
+    private static ParticleDataCodec[] resolve(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            ParticleDataCodec[] codecs = REGISTERED.get(current);
+            if (codecs != null)
+                return codecs;
+        }
+        return NO_CODECS;
+    }
+    
+}
@@ -24,8 +24,8 @@
 
 package xyz.xenondevs.particle;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 import xyz.xenondevs.particle.data.ParticleData;
@@ -33,18 +33,17 @@ import xyz.xenondevs.particle.data.SculkChargeData;
 import xyz.xenondevs.particle.data.ShriekData;
 import xyz.xenondevs.particle.data.VibrationData;
 import xyz.xenondevs.particle.data.color.*;
-import xyz.xenondevs.particle.data.texture.BlockTexture;
-import xyz.xenondevs.particle.data.texture.ItemTexture;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
+import xyz.xenondevs.particle.utils.ParticleUtils;
+import xyz.xenondevs.particle.utils.RecipientRegistry;
 import xyz.xenondevs.particle.utils.ReflectionUtils;
+import xyz.xenondevs.particle.utils.SpatialPlayerIndex;
 
 import java.awt.*;
 import java.util.List;
 import java.util.*;
 import java.util.function.DoubleFunction;
-import java.util.function.Function;
-import java.util.function.IntFunction;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static xyz.xenondevs.particle.ParticleConstants.PARTICLE_TYPE_REGISTRY;
 import static xyz.xenondevs.particle.ParticleConstants.REGISTRY_GET_METHOD;
@@ -1276,9 +1275,9 @@ public enum ParticleEffect {
     WHITE_ASH(version -> version < 16 ? "NONE" : "white_ash");
     
     /**
-     * An {@link IntFunction} to get the name of the particle by checking the version.
+     * The name of the particle in the current minecraft version.
      */
-    private final DoubleFunction<String> fieldNameMapper;
+    private final String fieldName;
     
     /**
      * A list of {@link PropertyType properties}
@@ -1286,23 +1285,37 @@ public enum ParticleEffect {
      */
     private final List<PropertyType> properties;
     
+    /**
+     * A bitmask of the {@link #properties} with one bit per {@link PropertyType#ordinal()}.
+     */
+    private final int propertyMask;
+    
     /**
      * An array with all {@link ParticleEffect ParticleEffects}.
      */
     public static final List<ParticleEffect> VALUES = Collections.unmodifiableList(Arrays.asList(values()));
     /**
-     * A {@link HashMap} to store the nms instances of all currently supported
+     * A {@link Map} to store the nms instances of all currently supported
      * {@link ParticleEffect ParticleEffects}.
      */
     public static final Map<ParticleEffect, Object> NMS_EFFECTS;
+    /**
+     * The nms instances of all {@link ParticleEffect ParticleEffects} indexed by their
+     * {@link #ordinal()}. Contains {@code null} for unsupported effects.
+     */
+    private static final Object[] NMS_OBJECTS;
     
     static {
-        //noinspection ConstantConditions
-        NMS_EFFECTS = Collections.unmodifiableMap(
-            VALUES.stream()
-                .filter(effect -> !"NONE".equals(effect.getFieldName()))
-                .collect(Collectors.toMap(Function.identity(), ParticleEffect::getNMSObject))
-        );
+        Object[] nmsObjects = new Object[VALUES.size()];
+        Map<ParticleEffect, Object> nmsEffects = new EnumMap<>(ParticleEffect.class);
+        for (ParticleEffect effect : VALUES) {
+            Object nmsObject = effect.resolveNMSObject();
+            nmsObjects[effect.ordinal()] = nmsObject;
+            if (nmsObject != null)
+                nmsEffects.put(effect, nmsObject);
+        }
+        NMS_OBJECTS = nmsObjects;
+        NMS_EFFECTS = Collections.unmodifiableMap(nmsEffects);
     }
     
     /**
@@ -1317,23 +1330,26 @@ public enum ParticleEffect {
     /**
      * Creates a new {@link ParticleEffect}
      *
-     * @param fieldNameMapper the {@link IntFunction} to map the version to the name of the
-     *                        respective particle.
+     * @param fieldNameMapper the {@link DoubleFunction} to map the version to the name of the
+     *                        respective particle. Only called once.
      * @param properties      A list of {@link PropertyType properties} supported by this particle.
      */
     ParticleEffect(DoubleFunction<String> fieldNameMapper, PropertyType... properties) {
-        this.fieldNameMapper = fieldNameMapper;
+        this.fieldName = fieldNameMapper.apply(ReflectionUtils.MINECRAFT_VERSION);
         this.properties = Collections.unmodifiableList(Arrays.asList(properties));
+        int mask = 0;
+        for (PropertyType property : properties)
+            mask |= 1 << property.ordinal();
+        this.propertyMask = mask;
     }
     
     /**
-     * Applies the {@link IntFunction} defined in the constructor to get the respective
-     * name of the particle.
+     * Gets the name of the particle in the current minecraft version.
      *
      * @return the {@link String} name of the particle.
      */
     public String getFieldName() {
-        return fieldNameMapper.apply(ReflectionUtils.MINECRAFT_VERSION);
+        return fieldName;
     }
     
     /**
@@ -1351,7 +1367,7 @@ public enum ParticleEffect {
      * @return {@code true} if the current {@link ParticleEffect} instance supports the given {@link PropertyType}.
      */
     public boolean hasProperty(PropertyType propertyType) {
-        return propertyType != null && properties.contains(propertyType);
+        return propertyType != null && (propertyMask & (1 << propertyType.ordinal())) != 0;
     }
     
     /**
@@ -1359,17 +1375,10 @@ public enum ParticleEffect {
      *
      * @param data the {@link ParticleData} that should be checked.
      * @return {@code true} if the current instance supports the given {@link ParticleData}.
+     * @see ParticleDataCodecs
      */
     public boolean isCorrectData(ParticleData data) {
-        if (data == null)
-            return true;
-        if (data instanceof ParticleColor)
-            return isCorrectColor(((ParticleColor) data));
-        if (data instanceof BlockTexture)
-            return hasProperty(REQUIRES_BLOCK);
-        if (data instanceof ItemTexture)
-            return hasProperty(REQUIRES_ITEM);
-        return data instanceof VibrationData && this == VIBRATION;
+        return data == null || ParticleDataCodecs.getCodec(this, data.getClass()) != null;
     }
     
     /**
@@ -1381,11 +1390,7 @@ public enum ParticleEffect {
      * @return {@code true} if the current instance supports the given {@link ParticleColor}.
      */
     public boolean isCorrectColor(ParticleColor color) {
-        if (color instanceof DustColorTransitionData)
-            return this == DUST_COLOR_TRANSITION;
-        if (color instanceof DustData)
-            return hasProperty(DUST);
-        return hasProperty(COLORABLE) && (this.equals(ParticleEffect.NOTE) ? color instanceof NoteColor : color instanceof RegularColor);
+        return isCorrectData(color);
     }
     
     /**
@@ -1394,9 +1399,15 @@ public enum ParticleEffect {
      * @return The NMS instance or {@code null} if the particle isn't supported in the current minecraft version.
      */
     public Object getNMSObject() {
-        if (NMS_EFFECTS != null && NMS_EFFECTS.containsKey(this))
-            return NMS_EFFECTS.get(this);
-        String fieldName = getFieldName();
+        return NMS_OBJECTS != null ? NMS_OBJECTS[ordinal()] : resolveNMSObject();
+    }
+    
+    /**
+     * Looks up the nms instance of the current {@link ParticleEffect} instance.
+     *
+     * @return The NMS instance or {@code null} if the particle isn't supported in the current minecraft version.
+     */
+    private Object resolveNMSObject() {
         if ("NONE".equals(fieldName))
             return null;
         if (ReflectionUtils.MINECRAFT_VERSION < 13)
@@ -1495,6 +1506,17 @@ public enum ParticleEffect {
         display(location, new RegularColor(color));
     }
     
+    /**
+     * Displays the current {@link ParticleEffect} to all players in the given radius.
+     *
+     * @param location the {@link Location} at which the particle should be displayed.
+     * @param color    the {@link ParticleColor} the particle should have.
+     * @param radius   the radius around the location in which players should receive the particle packet.
+     */
+    public void display(Location location, ParticleColor color, double radius) {
+        display(location, 0f, 0f, 0f, 1f, 0, color, radius);
+    }
+    
     /**
      * Displays the current {@link ParticleEffect}.
      *
@@ -1531,7 +1553,17 @@ public enum ParticleEffect {
      * @param location the {@link Location} at which the particle should be displayed.
      */
     public void display(Location location) {
-        display(location, 0f, 0f, 0f, 0f, 1, null, Bukkit.getOnlinePlayers());
+        display(location, 0f, 0f, 0f, 0f, 1, null);
+    }
+    
+    /**
+     * Displays the current {@link ParticleEffect} to all players in the given radius.
+     *
+     * @param location the {@link Location} at which the particle should be displayed.
+     * @param radius   the radius around the location in which players should receive the particle packet.
+     */
+    public void display(Location location, double radius) {
+        display(location, 0f, 0f, 0f, 0f, 1, null, radius);
     }
     
     /**
@@ -1606,8 +1638,7 @@ public enum ParticleEffect {
      * @param players  a list of players that should receive the particle packet.
      */
     public void display(Location location, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data, Player... players) {
-        ArrayList<Player> playerList = Arrays.stream(players).collect(Collectors.toCollection(ArrayList::new));
-        display(location, offsetX, offsetY, offsetZ, speed, amount, data, playerList);
+        display(location, offsetX, offsetY, offsetZ, speed, amount, data, Arrays.asList(players));
     }
     
     /**
@@ -1623,8 +1654,8 @@ public enum ParticleEffect {
      * @param filter   a {@link Predicate} to filter out specific {@link Player Players}.
      */
     public void display(Location location, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data, Predicate<Player> filter) {
-        ArrayList<Player> players = Bukkit.getOnlinePlayers().stream().filter(filter).collect(Collectors.toCollection(ArrayList::new));
-        display(location, offsetX, offsetY, offsetZ, speed, amount, data, players);
+        Object nmsPacket = createPacket(location, offsetX, offsetY, offsetZ, speed, amount, data);
+        ParticleUtils.sendPacket(this, nmsPacket, RecipientRegistry.getRegistry().getPlayers(location.getWorld()), filter);
     }
     
     /**
@@ -1639,7 +1670,27 @@ public enum ParticleEffect {
      * @param data     the {@link ParticleData} the particle should have.
      */
     public void display(Location location, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data) {
-        display(location, offsetX, offsetY, offsetZ, speed, amount, data, Bukkit.getOnlinePlayers());
+        Object nmsPacket = createPacket(location, offsetX, offsetY, offsetZ, speed, amount, data);
+        ParticleUtils.sendPacket(this, nmsPacket, RecipientRegistry.getRegistry().getPlayers(location.getWorld()), null);
+    }
+    
+    /**
+     * Displays the current {@link ParticleEffect} to all players in the given radius.
+     * The players are looked up in the {@link SpatialPlayerIndex}.
+     *
+     * @param location the {@link Location} at which the particle should be displayed.
+     * @param offsetX  the offsetX data of the particle.
+     * @param offsetY  the offsetY data of the particle.
+     * @param offsetZ  the offsetZ data of the particle.
+     * @param speed    the multiplier of the particle velocity.
+     * @param amount   the amount of particles that should be displayed.
+     * @param data     the {@link ParticleData} the particle should have.
+     * @param radius   the radius around the location in which players should receive the particle packet.
+     */
+    public void display(Location location, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data, double radius) {
+        Object nmsPacket = createPacket(location, offsetX, offsetY, offsetZ, speed, amount, data);
+        if (nmsPacket != null)
+            ParticleUtils.sendPacket(this, nmsPacket, SpatialPlayerIndex.getIndex().getPlayersInRadius(location, radius), null);
     }
     
     /**
@@ -1655,15 +1706,109 @@ public enum ParticleEffect {
      * @param players  a {@link Collection} of players that should receive the particle packet.
      */
     public void display(Location location, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data, Collection<? extends Player> players) {
+        Object nmsPacket = createPacket(location, offsetX, offsetY, offsetZ, speed, amount, data);
+        World world = location.getWorld();
+        ParticleUtils.sendPacket(this, nmsPacket, players, p -> p.getWorld().equals(world));
+    }
+    
+    /**
+     * Displays the current {@link ParticleEffect} at every point of the given array to all
+     * players in the given {@link World}. The particle is only compiled once and all packets
+     * are sent as one batch per player.
+     *
+     * @param world the {@link World} the points are in.
+     * @param xyz   the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     */
+    public void display(World world, double[] xyz) {
+        display(world, xyz, 0f, 0f, 0f, 0f, 1, null);
+    }
+    
+    /**
+     * Displays the current {@link ParticleEffect} at every point of the given array to the
+     * given players. The particle is only compiled once and all packets are sent as one batch
+     * per player. The players have to be in the world of the points.
+     *
+     * @param xyz     the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     * @param players a {@link Collection} of players that should receive the particle packets.
+     */
+    public void display(double[] xyz, Collection<? extends Player> players) {
+        display(xyz, 0f, 0f, 0f, 0f, 1, null, players);
+    }
+    
+    /**
+     * Displays the current {@link ParticleEffect} at every point of the given array to all
+     * players in the given {@link World}. The particle is only compiled once and all packets
+     * are sent as one batch per player.
+     *
+     * @param world   the {@link World} the points are in.
+     * @param xyz     the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     * @param offsetX the offsetX data of the particle.
+     * @param offsetY the offsetY data of the particle.
+     * @param offsetZ the offsetZ data of the particle.
+     * @param speed   the multiplier of the particle velocity.
+     * @param amount  the amount of particles that should be displayed at each point.
+     * @param data    the {@link ParticleData} the particle should have.
+     */
+    public void display(World world, double[] xyz, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data) {
+        CompiledParticle compiled = compile(offsetX, offsetY, offsetZ, speed, amount, data);
+        if (compiled != null)
+            ParticleUtils.sendBatched(this, compiled.createPackets(xyz), RecipientRegistry.getRegistry().getPlayers(world));
+    }
+    
+    /**
+     * Displays the current {@link ParticleEffect} at every point of the given array to the
+     * given players. The particle is only compiled once and all packets are sent as one batch
+     * per player. The players have to be in the world of the points.
+     *
+     * @param xyz     the coordinates of the points in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     * @param offsetX the offsetX data of the particle.
+     * @param offsetY the offsetY data of the particle.
+     * @param offsetZ the offsetZ data of the particle.
+     * @param speed   the multiplier of the particle velocity.
+     * @param amount  the amount of particles that should be displayed at each point.
+     * @param data    the {@link ParticleData} the particle should have.
+     * @param players a {@link Collection} of players that should receive the particle packets.
+     */
+    public void display(double[] xyz, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data, Collection<? extends Player> players) {
+        CompiledParticle compiled = compile(offsetX, offsetY, offsetZ, speed, amount, data);
+        if (compiled != null)
+            ParticleUtils.sendBatched(this, compiled.createPackets(xyz), players);
+    }
+    
+    /**
+     * Creates a packet of the current {@link ParticleEffect} with the given data.
+     *
+     * @param location the {@link Location} at which the particle should be displayed.
+     * @param offsetX  the offsetX data of the particle.
+     * @param offsetY  the offsetY data of the particle.
+     * @param offsetZ  the offsetZ data of the particle.
+     * @param speed    the multiplier of the particle velocity.
+     * @param amount   the amount of particles that should be displayed.
+     * @param data     the {@link ParticleData} the particle should have.
+     * @return a PacketPlayOutWorldParticles or {@code null} if the data doesn't match or something goes wrong.
+     */
+    private Object createPacket(Location location, float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data) {
+        long start = ParticleMetrics.getMetrics().startTimer();
+        CompiledParticle compiled = compile(offsetX, offsetY, offsetZ, speed, amount, data);
+        return compiled == null ? null : compiled.createPacket(location, start);
+    }
+    
+    /**
+     * Compiles the current {@link ParticleEffect} with the given data.
+     *
+     * @param offsetX the offsetX data of the particle.
+     * @param offsetY the offsetY data of the particle.
+     * @param offsetZ the offsetZ data of the particle.
+     * @param speed   the multiplier of the particle velocity.
+     * @param amount  the amount of particles that should be displayed.
+     * @param data    the {@link ParticleData} the particle should have.
+     * @return a {@link CompiledParticle} or {@code null} if the data doesn't match or something goes wrong.
+     */
+    private CompiledParticle compile(float offsetX, float offsetY, float offsetZ, float speed, int amount, ParticleData data) {
         if (!isCorrectData(data))
-            return;
-        if (data != null)
-            data.setEffect(this);
-        ParticlePacket packet = new ParticlePacket(this, offsetX, offsetY, offsetZ, speed, amount, data);
-        Object nmsPacket = packet.createPacket(location);
-        players.stream()
-            .filter(p -> p.getWorld().equals(location.getWorld()))
-            .forEach(p -> ReflectionUtils.sendPacket(p, nmsPacket));
+            return null;
+        ParticlePacket packet = new ParticlePacket(this, offsetX, offsetY, offsetZ, speed, amount, data == null ? null : data.bind(this));
+        return packet.compile();
     }
     
 }
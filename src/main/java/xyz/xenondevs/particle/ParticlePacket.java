@@ -28,20 +28,12 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import xyz.xenondevs.particle.data.ParticleData;
-import xyz.xenondevs.particle.data.SculkChargeData;
-import xyz.xenondevs.particle.data.ShriekData;
-import xyz.xenondevs.particle.data.VibrationData;
-import xyz.xenondevs.particle.data.color.DustData;
-import xyz.xenondevs.particle.data.color.NoteColor;
-import xyz.xenondevs.particle.data.color.ParticleColor;
-import xyz.xenondevs.particle.data.color.RegularColor;
 import xyz.xenondevs.particle.data.texture.BlockTexture;
-import xyz.xenondevs.particle.data.texture.ItemTexture;
+import xyz.xenondevs.particle.metrics.FailureReason;
+import xyz.xenondevs.particle.metrics.ParticleEvents;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
 import xyz.xenondevs.particle.utils.ReflectionUtils;
 
-import java.lang.reflect.Constructor;
-
-import static xyz.xenondevs.particle.ParticleConstants.PACKET_PLAY_OUT_WORLD_PARTICLES_CONSTRUCTOR;
 import static xyz.xenondevs.particle.ParticleEffect.*;
 
 
@@ -145,13 +137,11 @@ public final class ParticlePacket {
         if (ReflectionUtils.MINECRAFT_VERSION > 17) {
             if (particle == BARRIER) {
                 this.particle = BLOCK_MARKER;
-                this.particleData = new BlockTexture(Material.BARRIER);
-                this.particleData.setEffect(BLOCK_MARKER);
+                this.particleData = new BlockTexture(Material.BARRIER).bind(BLOCK_MARKER);
                 return;
             } else if (particle == LIGHT) {
                 this.particle = BLOCK_MARKER;
-                this.particleData = new BlockTexture(Material.LIGHT);
-                this.particleData.setEffect(BLOCK_MARKER);
+                this.particleData = new BlockTexture(Material.LIGHT).bind(BLOCK_MARKER);
                 return;
             }
         }
@@ -252,148 +242,59 @@ public final class ParticlePacket {
      * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
      */
     public Object createPacket(Location location) {
-        try {
-            ParticleEffect effect = getParticle();
-            ParticleData data = getParticleData();
-            double version = ReflectionUtils.MINECRAFT_VERSION;
-            if (effect == null || effect.getFieldName().equals("NONE"))
-                return null;
-            if (data != null) {
-                if (data.getEffect() != effect)
-                    return null;
-                Object nmsData = data.toNMSData();
-                if (nmsData == null)
-                    return null;
-                if ((data instanceof DustData && version >= 13)
-                    || (data instanceof VibrationData && version >= 17)
-                    || (data instanceof ShriekData && version >= 19)
-                    || (data instanceof SculkChargeData && version >= 19)
-                    || (data instanceof RegularColor && (version >= 17 && effect.hasProperty(PropertyType.DUST))))
-                    return createGenericParticlePacket(location, nmsData);
-                if ((data instanceof BlockTexture && effect.hasProperty(PropertyType.REQUIRES_BLOCK))
-                    || (data instanceof ItemTexture && effect.hasProperty(PropertyType.REQUIRES_ITEM)))
-                    return createTexturedParticlePacket(location, nmsData);
-                if (data instanceof ParticleColor && effect.hasProperty(PropertyType.COLORABLE))
-                    return createColoredParticlePacket(location, nmsData);
-                return null;
-            } else if (!effect.hasProperty(PropertyType.REQUIRES_BLOCK) && !effect.hasProperty(PropertyType.REQUIRES_ITEM))
-                return createPacket(effect.getNMSObject(),
-                    (float) location.getX(), (float) location.getY(), (float) location.getZ(),
-                    getOffsetX(), getOffsetY(), getOffsetZ(),
-                    getSpeed(), getAmount(), new int[0]);
-        } catch (Exception ignored) {
-        }
-        return null;
+        CompiledParticle compiled = compile();
+        return compiled == null ? null : compiled.createPacket(location);
     }
     
     /**
-     * Creates a new packet for particles that don't need any extra checks.
-     * <p>
-     * <b>Note: This method does not check if the given particle and
-     * data match!</b>
-     *
-     * @param location the {@link Location} the particle should be displayed at.
-     * @param param    the pre-built ParticleParam.
-     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
-     */
-    private Object createGenericParticlePacket(Location location, Object param) {
-        return createPacket(param,
-            (float) location.getX(), (float) location.getY(), (float) location.getZ(),
-            getOffsetX(), getOffsetY(), getOffsetZ(),
-            getSpeed(), getAmount(), new int[0]
-        );
-    }
-    
-    /**
-     * Creates a new packet for particles that support custom textures.
-     * <p>
-     * <b>Note: This method does not check if the given particle and
-     * data match!</b>
+     * Resolves the NMS representation of the current {@link ParticlePacket} data into
+     * a {@link CompiledParticle}. The returned instance can be used to create packets
+     * at any location without running the data checks and conversions again.
      *
-     * @param location the {@link Location} the particle should be displayed at.
-     * @param param    the pre-built ParticleParam.
-     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
-     * @see PropertyType#REQUIRES_BLOCK
-     * @see PropertyType#REQUIRES_ITEM
+     * @return a {@link CompiledParticle} or {@code null} when something goes wrong.
+     * @see CompiledParticle
      */
-    private Object createTexturedParticlePacket(Location location, Object param) {
-        ParticleEffect effect = getParticle();
-        double version = ReflectionUtils.MINECRAFT_VERSION;
-        return createPacket(version < 13 ? effect.getNMSObject() : param,
-            (float) location.getX(), (float) location.getY(), (float) location.getZ(),
-            getOffsetX(), getOffsetY(), getOffsetZ(),
-            getSpeed(), getAmount(), version < 13 ? (int[]) param : new int[0]
-        );
+    public CompiledParticle compile() {
+        Object event = ParticleEvents.beginPacketCreate();
+        CompiledParticle compiled = resolve();
+        ParticleEvents.commitPacketCreate(event, particle, particleData == null ? null : particleData.getClass(), compiled != null);
+        return compiled;
     }
     
     /**
-     * Creates a new packet for particles that support custom colors.
-     * <p>
-     * <b>Note: This method does not check if the given particle and
-     * data match!</b>
+     * Resolves the current {@link ParticlePacket} data and records failures
+     * in the {@link ParticleMetrics}.
      *
-     * @param location the {@link Location} the particle should be displayed at.
-     * @param param    the pre-built ParticleParam.
-     * @return a PacketPlayOutWorldParticles or {@code null} when something goes wrong.
-     * @see PropertyType#COLORABLE
+     * @return a {@link CompiledParticle} or {@code null} when something goes wrong.
      */
-    private Object createColoredParticlePacket(Location location, Object param) {
+    private CompiledParticle resolve() {
         ParticleEffect effect = getParticle();
-        ParticleData data = getParticleData();
-        if (data instanceof NoteColor && effect.equals(NOTE)) {
-            return createPacket(effect.getNMSObject(),
-                (float) location.getX(), (float) location.getY(), (float) location.getZ(),
-                ((NoteColor) data).getRed(), 0f, 0f,
-                getSpeed(), getAmount(), new int[0]
-            );
-        } else if (data instanceof RegularColor) {
-            RegularColor color = ((RegularColor) data);
-            if (ReflectionUtils.MINECRAFT_VERSION < 13 || !effect.equals(REDSTONE)) {
-                return createPacket(effect.getNMSObject(),
-                    (float) location.getX(), (float) location.getY(), (float) location.getZ(),
-                    (effect.equals(REDSTONE) && color.getRed() == 0 ? Float.MIN_NORMAL : color.getRed()), color.getGreen(), color.getBlue(),
-                    1f, 0, new int[0]
-                );
-            } else {
-                return createPacket(param,
-                    (float) location.getX(), (float) location.getY(), (float) location.getZ(),
-                    getOffsetX(), getOffsetY(), getOffsetZ(),
-                    getSpeed(), getAmount(), new int[0]
-                );
-            }
-        } else return null;
-    }
-    
-    /**
-     * Creates a new PacketPlayOutWorldParticles
-     * object with the given data.
-     *
-     * @param param     the ParticleParam of the  packet.
-     * @param locationX the x coordinate of the location the particle
-     *                  should be displayed at.
-     * @param locationY the y coordinate of the location the particle
-     *                  should be displayed at.
-     * @param locationZ the z coordinate of the location the particle
-     *                  should be displayed at.
-     * @param offsetX   the offset x value of the packet.
-     * @param offsetY   the offset y value of the packet.
-     * @param offsetZ   the offset z value of the packet.
-     * @param speed     the speed of the particle.
-     * @param amount    the amount of particles.
-     * @param data      extra data for the particle.
-     * @return A PacketPlayOutWorldParticles instance with the given data or {@code null} if an error occurs.
-     */
-    private Object createPacket(Object param, float locationX, float locationY, float locationZ, float offsetX, float offsetY, float offsetZ, float speed, int amount, int[] data) {
-        Constructor packetConstructor = PACKET_PLAY_OUT_WORLD_PARTICLES_CONSTRUCTOR;
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
         try {
-            if (ReflectionUtils.MINECRAFT_VERSION < 13)
-                return packetConstructor.newInstance(param, true, locationX, locationY, locationZ, offsetX, offsetY, offsetZ, speed, amount, data);
-            if (ReflectionUtils.MINECRAFT_VERSION < 15)
-                return packetConstructor.newInstance(param, true, locationX, locationY, locationZ, offsetX, offsetY, offsetZ, speed, amount);
-            return packetConstructor.newInstance(param, true, (double) locationX, (double) locationY, (double) locationZ, offsetX, offsetY, offsetZ, speed, amount);
-        } catch (Exception ex) {
-            return null;
+            ParticleData data = getParticleData();
+            if (effect == null || effect.getNMSObject() == null) {
+                metrics.recordFailure(effect, FailureReason.UNSUPPORTED_EFFECT);
+                return null;
+            }
+            if (data != null) {
+                ParticleDataCodec codec = data.getEffect() == effect ? ParticleDataCodecs.getCodec(effect, data.getClass()) : null;
+                if (codec == null) {
+                    metrics.recordFailure(effect, FailureReason.INVALID_DATA);
+                    return null;
+                }
+                CompiledParticle compiled = codec.compile(this, data);
+                if (compiled == null)
+                    metrics.recordFailure(effect, FailureReason.CONVERSION_FAILED);
+                return compiled;
+            } else if (!effect.hasProperty(PropertyType.REQUIRES_BLOCK) && !effect.hasProperty(PropertyType.REQUIRES_ITEM))
+                return new CompiledParticle(effect, effect.getNMSObject(),
+                    getOffsetX(), getOffsetY(), getOffsetZ(),
+                    getSpeed(), getAmount(), ParticleDataCodecs.NO_DATA);
+            metrics.recordFailure(effect, FailureReason.MISSING_DATA);
+        } catch (Exception ignored) {
+            metrics.recordFailure(effect, FailureReason.EXCEPTION);
         }
+        return null;
     }
     
 }
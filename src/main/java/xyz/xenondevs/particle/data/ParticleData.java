@@ -29,27 +29,116 @@ import xyz.xenondevs.particle.ParticleEffect;
 
 /**
  * A class to easier hold data of a particle.
+ * <p>
+ * {@link #bind(ParticleEffect) Binding} the data to a {@link ParticleEffect}
+ * returns an immutable copy that is assigned to the effect and caches its
+ * nms representation. Bound instances can be shared between threads and
+ * effects without being modified.
  *
  * @author ByteZ
  * @since 10.06.2019
  */
-public abstract class ParticleData {
+public abstract class ParticleData implements Cloneable {
     
     /**
      * The {@link ParticleEffect} the current {@link ParticleData} instance is
      * assigned to.
      */
     private ParticleEffect effect;
+    /**
+     * Whether the current instance is bound to its {@link #effect} and therefore immutable.
+     */
+    private volatile boolean bound;
+    /**
+     * The cached nms data of a bound instance.
+     */
+    private volatile Object nmsData;
+    /**
+     * The instance returned by the last call of {@link #bind(ParticleEffect)}.
+     */
+    private volatile ParticleData binding;
     
     /**
      * Sets the {@link ParticleEffect}.
+     * <p>
+     * Note: Mutating shared data isn't thread safe. Use {@link #bind(ParticleEffect)} instead.
      *
      * @param effect the {@link ParticleEffect} that should be displayed.
+     * @throws IllegalStateException if the current instance is bound to another {@link ParticleEffect}.
      */
     public void setEffect(ParticleEffect effect) {
+        if (bound) {
+            if (effect != this.effect)
+                throw new IllegalStateException("Bound ParticleData can't be assigned to another effect");
+            return;
+        }
         this.effect = effect;
     }
     
+    /**
+     * Gets an immutable copy of the current {@link ParticleData} that is bound to the
+     * given {@link ParticleEffect}. The current instance isn't modified. Repeated calls
+     * with the same effect return the same instance.
+     *
+     * @param effect the {@link ParticleEffect} the data should be bound to.
+     * @return the bound {@link ParticleData}
+     */
+    public final ParticleData bind(ParticleEffect effect) {
+        if (bound && effect == this.effect)
+            return this;
+        ParticleData last = binding;
+        if (last != null && last.effect == effect)
+            return last;
+        ParticleData copy = copy();
+        copy.bound = false;
+        copy.nmsData = null;
+        copy.binding = null;
+        copy.setEffect(effect);
+        copy.bound = true;
+        binding = copy;
+        return copy;
+    }
+    
+    /**
+     * Checks if the current instance is bound to its {@link ParticleEffect}.
+     *
+     * @return {@code true} if the current instance is immutable.
+     * @see #bind(ParticleEffect)
+     */
+    public boolean isBound() {
+        return bound;
+    }
+    
+    /**
+     * Gets the nms data of the current {@link ParticleData}. Bound instances
+     * only convert their data once.
+     *
+     * @return the nms data.
+     * @see #toNMSData()
+     */
+    public final Object getNMSData() {
+        if (!bound)
+            return toNMSData();
+        Object data = nmsData;
+        if (data == null)
+            nmsData = data = toNMSData();
+        return data;
+    }
+    
+    /**
+     * Creates a copy of the current {@link ParticleData}. Used by {@link #bind(ParticleEffect)}.
+     * Subclasses with mutable state should override this method and copy that state.
+     *
+     * @return a copy of the current instance.
+     */
+    protected ParticleData copy() {
+        try {
+            return (ParticleData) super.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+    
     /**
      * Converts the current {@link ParticleData} instance into nms data. If the current
      * minecraft version was released before 1.13 an int array should be returned. If the
@@ -40,6 +40,10 @@ import java.util.Objects;
  * Minecraft only supports full block coordinates for the start and destination location. So any
  * particle will spawn at the center of a block. (<b>Again, only for pre 1.19 versions. The client uses the normal spawn
  * location of the particle since 1.19</b>)
+ * <p>
+ * The {@link Location Locations} are copied on creation and when they're requested, so
+ * the data can't be changed after it was created and copies made by {@link #copy()}
+ * can safely share them.
  *
  * @author ByteZ
  * @see ParticleEffect#VIBRATION
@@ -71,8 +75,8 @@ public final class VibrationData extends ParticleData {
      * @param ticks       the amount of ticks it will take the particle to reach the {@link #blockDestination}
      */
     public VibrationData(Location start, Location destination, int ticks) {
-        this.start = Objects.requireNonNull(start);
-        this.blockDestination = Objects.requireNonNull(destination);
+        this.start = Objects.requireNonNull(start).clone();
+        this.blockDestination = Objects.requireNonNull(destination).clone();
         this.entitydestination = null;
         this.ticks = ticks;
     }
@@ -85,7 +89,7 @@ public final class VibrationData extends ParticleData {
      */
     public VibrationData(Location destination, int ticks) {
         this.start = null;
-        this.blockDestination = Objects.requireNonNull(destination);
+        this.blockDestination = Objects.requireNonNull(destination).clone();
         this.entitydestination = null;
         this.ticks = ticks;
     }
@@ -98,7 +102,7 @@ public final class VibrationData extends ParticleData {
      * @param ticks       the amount of ticks it will take the particle to reach the {@link #blockDestination}
      */
     public VibrationData(Location start, Entity destination, int ticks) {
-        this.start = Objects.requireNonNull(start);
+        this.start = Objects.requireNonNull(start).clone();
         this.entitydestination = Objects.requireNonNull(destination);
         this.blockDestination = null;
         this.ticks = ticks;
@@ -120,19 +124,19 @@ public final class VibrationData extends ParticleData {
     /**
      * Gets the start {@link Location} of the particle.
      *
-     * @return the start {@link Location} of the particle.
+     * @return a copy of the start {@link Location} of the particle or {@code null} if it isn't set.
      */
     public Location getStart() {
-        return start;
+        return start == null ? null : start.clone();
     }
     
     /**
      * Gets the destination {@link Location} of the particle.
      *
-     * @return the destination {@link Location} of the particle.
+     * @return a copy of the destination {@link Location} of the particle or {@code null} if an {@link Entity} is the destination.
      */
     public Location getBlockDestination() {
-        return blockDestination;
+        return blockDestination == null ? null : blockDestination.clone();
     }
     
     /**
@@ -168,21 +172,21 @@ public final class VibrationData extends ParticleData {
         if (ReflectionUtils.MINECRAFT_VERSION < 17 || getEffect() != ParticleEffect.VIBRATION)
             return null;
         boolean isBlockDest = blockDestination != null;
-        Object start = ReflectionUtils.createBlockPosition(getStart());
+        Object startPosition = ReflectionUtils.createBlockPosition(start);
         try {
             if (ReflectionUtils.MINECRAFT_VERSION < 19) {
                 Object source;
                 if (isBlockDest) {
-                    Object dest = ReflectionUtils.createBlockPosition(getBlockDestination());
+                    Object dest = ReflectionUtils.createBlockPosition(blockDestination);
                     source = ParticleConstants.BLOCK_POSITION_SOURCE_CONSTRUCTOR.newInstance(dest);
                 } else
                     source = ParticleConstants.ENTITY_POSITION_SOURCE_CONSTRUCTOR.newInstance(getEntityDestination().getEntityId());
-                Object path = ParticleConstants.VIBRATION_PATH_CONSTRUCTOR.newInstance(start, source, getTicks());
+                Object path = ParticleConstants.VIBRATION_PATH_CONSTRUCTOR.newInstance(startPosition, source, getTicks());
                 return ParticleConstants.PARTICLE_PARAM_VIBRATION_CONSTRUCTOR.newInstance(path);
             } else {
                 Object source;
                 if (isBlockDest) {
-                    Object dest = ReflectionUtils.createBlockPosition(getBlockDestination());
+                    Object dest = ReflectionUtils.createBlockPosition(blockDestination);
                     source = ParticleConstants.BLOCK_POSITION_SOURCE_CONSTRUCTOR.newInstance(dest);
                 } else
                     source = ParticleConstants.ENTITY_POSITION_SOURCE_CONSTRUCTOR.newInstance(ReflectionUtils.getEntityHandle(getEntityDestination()), 0f);
@@ -24,7 +24,6 @@
 
 package xyz.xenondevs.particle.data.color;
 
-import xyz.xenondevs.particle.ParticleConstants;
 import xyz.xenondevs.particle.ParticleEffect;
 import xyz.xenondevs.particle.PropertyType;
 import xyz.xenondevs.particle.utils.ReflectionUtils;
@@ -134,12 +133,6 @@ public final class DustColorTransitionData extends DustData {
     public Object toNMSData() {
         if (ReflectionUtils.MINECRAFT_VERSION < 17 || getEffect() != ParticleEffect.DUST_COLOR_TRANSITION)
             return null;
-        Object fadeStart = ReflectionUtils.createVector3fa(getRed(), getGreen(), getBlue());
-        Object fadeEnd = ReflectionUtils.createVector3fa(getFadeRed(), getFadeGreen(), getFadeBlue());
-        try {
-            return ParticleConstants.PARTICLE_PARAM_DUST_COLOR_TRANSITION_CONSTRUCTOR.newInstance(fadeStart, fadeEnd, getSize());
-        } catch (Exception ex) {
-            return null;
-        }
+        return DustParamCache.getParam(getEffect(), getRed(), getGreen(), getBlue(), getFadeRed(), getFadeGreen(), getFadeBlue(), getSize());
     }
 }
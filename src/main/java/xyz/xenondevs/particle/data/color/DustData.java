@@ -24,7 +24,6 @@
 
 package xyz.xenondevs.particle.data.color;
 
-import xyz.xenondevs.particle.ParticleConstants;
 import xyz.xenondevs.particle.ParticleEffect;
 import xyz.xenondevs.particle.PropertyType;
 import xyz.xenondevs.particle.utils.ReflectionUtils;
@@ -106,19 +105,10 @@ public class DustData extends RegularColor {
      */
     @Override
     public Object toNMSData() {
-        try {
-            if (ReflectionUtils.MINECRAFT_VERSION < 13 || getEffect() == null || !getEffect().hasProperty(PropertyType.DUST))
-                return new int[0];
-            else if (ReflectionUtils.MINECRAFT_VERSION < 17 && getEffect() == ParticleEffect.REDSTONE)
-                return ParticleConstants.PARTICLE_PARAM_REDSTONE_CONSTRUCTOR.newInstance(getRed(), getGreen(), getBlue(), getSize());
-            else if (ReflectionUtils.MINECRAFT_VERSION >= 17) {
-                Object colorVector = ReflectionUtils.createVector3fa(getRed(), getGreen(), getBlue());
-                return getEffect() == ParticleEffect.REDSTONE
-                    ? ParticleConstants.PARTICLE_PARAM_REDSTONE_CONSTRUCTOR.newInstance(colorVector, getSize())
-                    : ParticleConstants.PARTICLE_PARAM_DUST_COLOR_TRANSITION_CONSTRUCTOR.newInstance(colorVector, colorVector, getSize());
-            }
-        } catch (Exception ignored) {
-        }
-        return null;
+        if (ReflectionUtils.MINECRAFT_VERSION < 13 || getEffect() == null || !getEffect().hasProperty(PropertyType.DUST))
+            return new int[0];
+        if (ReflectionUtils.MINECRAFT_VERSION < 17 && getEffect() != ParticleEffect.REDSTONE)
+            return null;
+        return DustParamCache.getParam(getEffect(), getRed(), getGreen(), getBlue(), getRed(), getGreen(), getBlue(), getSize());
     }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.data.color;
+
+import xyz.xenondevs.particle.ParticleConstants;
+import xyz.xenondevs.particle.ParticleEffect;
+import xyz.xenondevs.particle.utils.BoundedCache;
+import xyz.xenondevs.particle.utils.ReflectionUtils;
+
+/**
+ * Interns the NMS ParticleParams of dust particles. ParticleParamRedstone and
+ * DustColorTransitionOptions are immutable, so packets with the same effect,
+ * colors and size can share a single instance instead of creating new vectors
+ * and params via reflection for every packet.
+ *
+ * @author ByteZ
+ * @see DustData
+ * @see DustColorTransitionData
+ * @see RegularColor
+ */
+public final class DustParamCache {
+    
+    /**
+     * The maximum amount of cached params.
+     */
+    private static final int CAPACITY = 2048;
+    
+    /**
+     * The cached params.
+     */
+    private static final BoundedCache<Key, Object> CACHE = new BoundedCache<>(CAPACITY);
+    
+    /**
+     * Private constructor because this is a utility class.
+     */
+    private DustParamCache() {
+    }
+    
+    /**
+     * Gets the shared ParticleParam of a dust particle. Has to be called on 1.13+ servers.
+     *
+     * @param effect    the {@link ParticleEffect} of the particle
+     * @param red       the red value of the color (0-1)
+     * @param green     the green value of the color (0-1)
+     * @param blue      the blue value of the color (0-1)
+     * @param fadeRed   the red value of the fade color (0-1). Ignored by redstone particles
+     * @param fadeGreen the green value of the fade color (0-1). Ignored by redstone particles
+     * @param fadeBlue  the blue value of the fade color (0-1). Ignored by redstone particles
+     * @param size      the size of the particle
+     * @return the ParticleParam or {@code null} if it can't be created.
+     */
+    static Object getParam(ParticleEffect effect, float red, float green, float blue, float fadeRed, float fadeGreen, float fadeBlue, float size) {
+        return CACHE.get(new Key(effect, red, green, blue, fadeRed, fadeGreen, fadeBlue, size), DustParamCache::createParam);
+    }
+    
+    /**
+     * Creates a new ParticleParam for the given key.
+     *
+     * @param key the {@link Key} of the param
+     * @return the ParticleParam or {@code null} if it can't be created.
+     */
+    private static Object createParam(Key key) {
+        try {
+            if (key.effect == ParticleEffect.REDSTONE) {
+                return ReflectionUtils.MINECRAFT_VERSION < 17
+                    ? ParticleConstants.PARTICLE_PARAM_REDSTONE_CONSTRUCTOR.newInstance(key.red, key.green, key.blue, key.size)
+                    : ParticleConstants.PARTICLE_PARAM_REDSTONE_CONSTRUCTOR.newInstance(ReflectionUtils.createVector3fa(key.red, key.green, key.blue), key.size);
+            }
+            Object fadeStart = ReflectionUtils.createVector3fa(key.red, key.green, key.blue);
+            Object fadeEnd = ReflectionUtils.createVector3fa(key.fadeRed, key.fadeGreen, key.fadeBlue);
+            return ParticleConstants.PARTICLE_PARAM_DUST_COLOR_TRANSITION_CONSTRUCTOR.newInstance(fadeStart, fadeEnd, key.size);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the underlying {@link BoundedCache} e.g. to read the hit and miss counters.
+     *
+     * @return the {@link BoundedCache} holding the params
+     */
+    public static BoundedCache<?, Object> getCache() {
+        return CACHE;
+    }
+    
+    /**
+     * The key of a cached param.
+     */
+    private static final class Key {
+        
+        /**
+         * The {@link ParticleEffect} of the particle.
+         */
+        private final ParticleEffect effect;
+        /**
+         * The red value of the color.
+         */
+        private final float red;
+        /**
+         * The green value of the color.
+         */
+        private final float green;
+        /**
+         * The blue value of the color.
+         */
+        private final float blue;
+        /**
+         * The red value of the fade color.
+         */
+        private final float fadeRed;
+        /**
+         * The green value of the fade color.
+         */
+        private final float fadeGreen;
+        /**
+         * The blue value of the fade color.
+         */
+        private final float fadeBlue;
+        /**
+         * The size of the particle.
+         */
+        private final float size;
+        /**
+         * The precomputed hash code.
+         */
+        private final int hash;
+        
+        /**
+         * Creates a new {@link Key}.
+         *
+         * @param effect    the {@link ParticleEffect} of the particle
+         * @param red       the red value of the color
+         * @param green     the green value of the color
+         * @param blue      the blue value of the color
+         * @param fadeRed   the red value of the fade color
+         * @param fadeGreen the green value of the fade color
+         * @param fadeBlue  the blue value of the fade color
+         * @param size      the size of the particle
+         */
+        private Key(ParticleEffect effect, float red, float green, float blue, float fadeRed, float fadeGreen, float fadeBlue, float size) {
+            this.effect = effect;
+            this.red = red;
+            this.green = green;
+            this.blue = blue;
+            this.fadeRed = fadeRed;
+            this.fadeGreen = fadeGreen;
+            this.fadeBlue = fadeBlue;
+            this.size = size;
+            int hash = effect.hashCode();
+            hash = 31 * hash + Float.floatToIntBits(red);
+            hash = 31 * hash + Float.floatToIntBits(green);
+            hash = 31 * hash + Float.floatToIntBits(blue);
+            hash = 31 * hash + Float.floatToIntBits(fadeRed);
+            hash = 31 * hash + Float.floatToIntBits(fadeGreen);
+            hash = 31 * hash + Float.floatToIntBits(fadeBlue);
+            this.hash = 31 * hash + Float.floatToIntBits(size);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return effect == other.effect
+                && Float.floatToIntBits(red) == Float.floatToIntBits(other.red)
+                && Float.floatToIntBits(green) == Float.floatToIntBits(other.green)
+                && Float.floatToIntBits(blue) == Float.floatToIntBits(other.blue)
+                && Float.floatToIntBits(fadeRed) == Float.floatToIntBits(other.fadeRed)
+                && Float.floatToIntBits(fadeGreen) == Float.floatToIntBits(other.fadeGreen)
+                && Float.floatToIntBits(fadeBlue) == Float.floatToIntBits(other.fadeBlue)
+                && Float.floatToIntBits(size) == Float.floatToIntBits(other.size);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+}
@@ -24,7 +24,6 @@
 
 package xyz.xenondevs.particle.data.color;
 
-import xyz.xenondevs.particle.ParticleConstants;
 import xyz.xenondevs.particle.ParticleEffect;
 import xyz.xenondevs.particle.PropertyType;
 import xyz.xenondevs.particle.data.ParticleData;
@@ -111,18 +110,9 @@ public class RegularColor extends ParticleColor {
     public Object toNMSData() {
         if (ReflectionUtils.MINECRAFT_VERSION < 13 || (getEffect() != ParticleEffect.REDSTONE && getEffect() != ParticleEffect.DUST_COLOR_TRANSITION))
             return new int[0];
-        try {
-            if (getEffect() == ParticleEffect.REDSTONE)
-                return ReflectionUtils.MINECRAFT_VERSION < 17
-                    ? ParticleConstants.PARTICLE_PARAM_REDSTONE_CONSTRUCTOR.newInstance(getRed(), getGreen(), getBlue(), 1f)
-                    : ParticleConstants.PARTICLE_PARAM_REDSTONE_CONSTRUCTOR.newInstance(ReflectionUtils.createVector3fa(getRed(), getGreen(), getBlue()), 1f);
-            if (ReflectionUtils.MINECRAFT_VERSION < 17)
-                return null;
-            Object colorVector = ReflectionUtils.createVector3fa(getRed(), getGreen(), getBlue());
-            return ParticleConstants.PARTICLE_PARAM_DUST_COLOR_TRANSITION_CONSTRUCTOR.newInstance(colorVector, colorVector, 1f);
-        } catch (Exception ex) {
+        if (getEffect() == ParticleEffect.DUST_COLOR_TRANSITION && ReflectionUtils.MINECRAFT_VERSION < 17)
             return null;
-        }
+        return DustParamCache.getParam(getEffect(), getRed(), getGreen(), getBlue(), getRed(), getGreen(), getBlue(), 1f);
     }
     
     /**
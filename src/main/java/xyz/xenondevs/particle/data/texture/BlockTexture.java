@@ -25,9 +25,11 @@
 package xyz.xenondevs.particle.data.texture;
 
 import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
 import xyz.xenondevs.particle.ParticleConstants;
 import xyz.xenondevs.particle.PropertyType;
 import xyz.xenondevs.particle.data.ParticleData;
+import xyz.xenondevs.particle.utils.BoundedCache;
 import xyz.xenondevs.particle.utils.ReflectionUtils;
 
 import java.lang.reflect.Field;
@@ -37,6 +39,10 @@ import static xyz.xenondevs.particle.ParticleConstants.REGISTRY_GET_METHOD;
 
 /**
  * An implementation of the {@link ParticleTexture} object to support block texture particles.
+ * <p>
+ * The nms block data of each {@link Material} is only looked up once and then
+ * cached by the ordinal of the {@link Material}. Block states of 1.13+
+ * {@link BlockData} are kept in a size bounded cache.
  *
  * @author ByteZ
  * @see PropertyType#REQUIRES_BLOCK
@@ -44,6 +50,26 @@ import static xyz.xenondevs.particle.ParticleConstants.REGISTRY_GET_METHOD;
  */
 public final class BlockTexture extends ParticleTexture {
     
+    /**
+     * Marks {@link Material Materials} without nms block data in the {@link #BLOCK_DATA_CACHE}.
+     */
+    private static final Object MISSING = new Object();
+    /**
+     * The nms block data of each {@link Material} indexed by {@link Material#ordinal()}.
+     * Contains {@code null} for materials that haven't been looked up yet.
+     */
+    private static final Object[] BLOCK_DATA_CACHE = new Object[Material.values().length];
+    /**
+     * The nms block states of {@link BlockData} instances.
+     */
+    private static final BoundedCache<Object, Object> BLOCK_STATE_CACHE = new BoundedCache<>(4096);
+    
+    /**
+     * The {@link BlockData} the particle should display or {@code null} if
+     * the default block data of the {@link Material} should be used.
+     */
+    private final BlockData blockData;
+    
     /**
      * Initializes a new {@link ParticleData} object.
      *
@@ -51,6 +77,7 @@ public final class BlockTexture extends ParticleTexture {
      */
     public BlockTexture(Material material) {
         super(material, (byte) 0);
+        this.blockData = null;
     }
     
     /**
@@ -61,6 +88,27 @@ public final class BlockTexture extends ParticleTexture {
      */
     public BlockTexture(Material material, byte data) {
         super(material, data);
+        this.blockData = null;
+    }
+    
+    /**
+     * Initializes a new {@link ParticleData} Object. Only supported on 1.13+ servers.
+     *
+     * @param blockData the {@link BlockData} the particle should display.
+     */
+    public BlockTexture(BlockData blockData) {
+        super(blockData.getMaterial(), (byte) 0);
+        this.blockData = blockData.clone();
+    }
+    
+    /**
+     * Gets the bukkit {@link BlockData} the particle should display. Unlike
+     * {@link #getBlockData(Material)}, this doesn't return nms data.
+     *
+     * @return the {@link BlockData} or {@code null} if the default block data of the {@link Material} is used.
+     */
+    public BlockData getBukkitBlockData() {
+        return blockData == null ? null : blockData.clone();
     }
     
     /**
@@ -76,7 +124,7 @@ public final class BlockTexture extends ParticleTexture {
             return null;
         if (ReflectionUtils.MINECRAFT_VERSION < 13)
             return super.toNMSData();
-        Object block = getBlockData(getMaterial());
+        Object block = blockData == null ? getBlockData(getMaterial()) : getBlockState(blockData);
         if (block == null)
             return null;
         try {
@@ -93,6 +141,37 @@ public final class BlockTexture extends ParticleTexture {
      * @return the block data of the specified {@link Material} or {@code null} when an error occurs.
      */
     public Object getBlockData(Material material) {
+        Object block = BLOCK_DATA_CACHE[material.ordinal()];
+        if (block == null) {
+            block = lookupBlockData(material);
+            BLOCK_DATA_CACHE[material.ordinal()] = block == null ? MISSING : block;
+        }
+        return block == MISSING ? null : block;
+    }
+    
+    /**
+     * Gets the nms block state of the given bukkit {@link BlockData}.
+     *
+     * @param blockData the {@link BlockData} whose state should be got.
+     * @return the block state of the specified {@link BlockData} or {@code null} when an error occurs.
+     */
+    private static Object getBlockState(BlockData blockData) {
+        return BLOCK_STATE_CACHE.get(blockData, data -> {
+            try {
+                return ParticleConstants.CRAFT_BLOCK_DATA_GET_STATE_METHOD.invoke(data);
+            } catch (Exception ex) {
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * Looks up the nms block data of the given bukkit {@link Material}.
+     *
+     * @param material the {@link Material} whose data should be looked up.
+     * @return the block data of the specified {@link Material} or {@code null} when an error occurs.
+     */
+    private static Object lookupBlockData(Material material) {
         try {
             Object block;
             if (ReflectionUtils.MINECRAFT_VERSION < 17) {
@@ -26,12 +26,20 @@ package xyz.xenondevs.particle.data.texture;
 
 import org.bukkit.inventory.ItemStack;
 import xyz.xenondevs.particle.ParticleConstants;
+import xyz.xenondevs.particle.ParticleEffect;
 import xyz.xenondevs.particle.PropertyType;
 import xyz.xenondevs.particle.data.ParticleData;
+import xyz.xenondevs.particle.utils.BoundedCache;
 import xyz.xenondevs.particle.utils.ReflectionUtils;
 
 /**
  * An implementation of the {@link ParticleTexture} object to support item texture particles.
+ * <p>
+ * Converting an {@link ItemStack} to nms copies the whole item including its NBT data.
+ * The ParticleParams built from them are therefore kept in a size bounded cache keyed
+ * by the content of the {@link ItemStack}. The amount of the {@link ItemStack} doesn't
+ * affect the particle and is ignored by the cache. The {@link ItemStack} is copied on
+ * creation, so later changes to the original don't affect the texture.
  *
  * @author ByteZ
  * @see PropertyType#REQUIRES_ITEM
@@ -39,10 +47,23 @@ import xyz.xenondevs.particle.utils.ReflectionUtils;
  */
 public final class ItemTexture extends ParticleTexture {
     
+    /**
+     * The ParticleParams of each {@link ParticleEffect} and {@link ItemStack} combination.
+     */
+    private static final BoundedCache<ParamKey, Object> PARAM_CACHE = new BoundedCache<>(1024);
+    
     /**
      * The {@link ItemStack} that will be displayed by the particle.
      */
     private final ItemStack itemStack;
+    /**
+     * A copy of the {@link #itemStack} with an amount of 1 used as cache key.
+     */
+    private final ItemStack cacheKey;
+    /**
+     * The ParticleParam last created by this instance.
+     */
+    private volatile CachedParam cachedParam;
     
     /**
      * Initializes a new {@link ParticleData} object.
@@ -53,7 +74,10 @@ public final class ItemTexture extends ParticleTexture {
      */
     public ItemTexture(ItemStack itemStack) {
         super(itemStack == null ? null : itemStack.getType(), (byte) 0);
-        this.itemStack = itemStack;
+        this.itemStack = itemStack == null ? null : itemStack.clone();
+        this.cacheKey = itemStack == null ? null : itemStack.clone();
+        if (cacheKey != null)
+            cacheKey.setAmount(1);
     }
     
     /**
@@ -69,22 +93,40 @@ public final class ItemTexture extends ParticleTexture {
             return null;
         if (ReflectionUtils.MINECRAFT_VERSION < 13)
             return super.toNMSData();
-        else {
-            try {
-                return ParticleConstants.PARTICLE_PARAM_ITEM_CONSTRUCTOR.newInstance(getEffect().getNMSObject(), toNMSItemStack(getItemStack()));
-            } catch (Exception ex) {
-                return null;
-            }
+        ParticleEffect effect = getEffect();
+        CachedParam cached = cachedParam;
+        if (cached != null && cached.effect == effect)
+            return cached.param;
+        Object param = PARAM_CACHE.get(new ParamKey(effect, cacheKey), ItemTexture::createParam);
+        if (param != null)
+            cachedParam = new CachedParam(effect, param);
+        return param;
+    }
+    
+    /**
+     * Creates the ParticleParam of the given key.
+     *
+     * @param key the {@link ParamKey} containing the {@link ParticleEffect} and {@link ItemStack}
+     * @return the ParticleParam or {@code null} if an error occurs.
+     */
+    private static Object createParam(ParamKey key) {
+        Object nmsItem = toNMSItemStack(key.itemStack);
+        if (nmsItem == null)
+            return null;
+        try {
+            return ParticleConstants.PARTICLE_PARAM_ITEM_CONSTRUCTOR.newInstance(key.effect.getNMSObject(), nmsItem);
+        } catch (Exception ex) {
+            return null;
         }
     }
     
     /**
      * Gets the {@link ItemStack} that will be displayed by the particle.
      *
-     * @return the assigned {@link ItemStack}.
+     * @return a copy of the assigned {@link ItemStack}.
      */
     public ItemStack getItemStack() {
-        return itemStack;
+        return itemStack == null ? null : itemStack.clone();
     }
     
     /**
@@ -103,4 +145,71 @@ public final class ItemTexture extends ParticleTexture {
         }
     }
     
+    /**
+     * The key of a cached ParticleParam.
+     */
+    private static final class ParamKey {
+        
+        /**
+         * The {@link ParticleEffect} of the particle.
+         */
+        private final ParticleEffect effect;
+        /**
+         * The {@link ItemStack} of the particle with an amount of 1. Never modified.
+         */
+        private final ItemStack itemStack;
+        
+        /**
+         * Creates a new {@link ParamKey}.
+         *
+         * @param effect    the {@link ParticleEffect} of the particle
+         * @param itemStack the {@link ItemStack} of the particle with an amount of 1
+         */
+        private ParamKey(ParticleEffect effect, ItemStack itemStack) {
+            this.effect = effect;
+            this.itemStack = itemStack;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof ParamKey))
+                return false;
+            ParamKey other = (ParamKey) obj;
+            return effect == other.effect && itemStack.equals(other.itemStack);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * effect.hashCode() + itemStack.hashCode();
+        }
+    }
+    
+    /**
+     * A ParticleParam together with the {@link ParticleEffect} it was created for.
+     */
+    private static final class CachedParam {
+        
+        /**
+         * The {@link ParticleEffect} the {@link #param} was created for.
+         */
+        private final ParticleEffect effect;
+        /**
+         * The ParticleParam.
+         */
+        private final Object param;
+        
+        /**
+         * Creates a new {@link CachedParam}.
+         *
+         * @param effect the {@link ParticleEffect} the param was created for
+         * @param param  the ParticleParam
+         */
+        private CachedParam(ParticleEffect effect, Object param) {
+            this.effect = effect;
+            this.param = param;
+        }
+    }
+    
 }
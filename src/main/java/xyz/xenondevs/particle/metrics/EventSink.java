@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+/**
+ * Receives the events of the particle hot paths. Events are started with one of
+ * the {@code begin} methods and finished with the matching {@code commit} method.
+ * A {@code begin} method returns {@code null} if the event isn't recorded, in which
+ * case the {@code commit} method must not be called.
+ *
+ * @author ByteZ
+ * @see ParticleEvents
+ */
+interface EventSink {
+    
+    /**
+     * The {@link EventSink} used if Java Flight Recorder isn't available.
+     */
+    EventSink NONE = new EventSink() {};
+    
+    /**
+     * @return the started ParticlePacketCreate event or {@code null}
+     */
+    default Object beginPacketCreate() {
+        return null;
+    }
+    
+    /**
+     * @param event    the started event
+     * @param effect   the name of the effect
+     * @param dataType the name of the data class or {@code null}
+     * @param success  whether the packet could be created
+     */
+    default void commitPacketCreate(Object event, String effect, String dataType, boolean success) {
+    }
+    
+    /**
+     * @return the started ParticleSend event or {@code null}
+     */
+    default Object beginSend() {
+        return null;
+    }
+    
+    /**
+     * @param event      the started event
+     * @param recipients the amount of recipients
+     * @param packets    the amount of packets per recipient
+     */
+    default void commitSend(Object event, int recipients, int packets) {
+    }
+    
+    /**
+     * @return the started ParticleTaskTick event or {@code null}
+     */
+    default Object beginTaskTick() {
+        return null;
+    }
+    
+    /**
+     * @param event    the started event
+     * @param taskId   the id of the task
+     * @param type     the name of the task class
+     * @param audience the amount of target players
+     */
+    default void commitTaskTick(Object event, int taskId, String type, int audience) {
+    }
+    
+    /**
+     * @return the started ReflectionResolve event or {@code null}
+     */
+    default Object beginReflectionResolve() {
+        return null;
+    }
+    
+    /**
+     * @param event  the started event
+     * @param kind   the kind of the member
+     * @param member the name of the member
+     * @param found  whether the member was found
+     */
+    default void commitReflectionResolve(Object event, String kind, String member, boolean found) {
+    }
+    
+}
@@ -0,0 +1,54 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+/**
+ * The reasons why no packet could be created for a particle.
+ *
+ * @author ByteZ
+ * @see ParticleMetrics#recordFailure(xyz.xenondevs.particle.ParticleEffect, FailureReason)
+ */
+public enum FailureReason {
+    /**
+     * The effect is {@code null} or not supported in the current minecraft version.
+     */
+    UNSUPPORTED_EFFECT,
+    /**
+     * The data is assigned to another effect or no codec supports the data for the effect.
+     */
+    INVALID_DATA,
+    /**
+     * The effect requires block or item data, but no data was given.
+     */
+    MISSING_DATA,
+    /**
+     * The data couldn't be converted to its nms representation.
+     */
+    CONVERSION_FAILED,
+    /**
+     * An exception was thrown while creating the packet.
+     */
+    EXCEPTION
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram with fixed buckets. Each bucket counts the recorded
+ * values that are less than or equal to its upper bound. The last bucket
+ * counts all values above the highest bound.
+ *
+ * @author ByteZ
+ */
+public final class Histogram {
+    
+    /**
+     * The inclusive upper bounds of the buckets in ascending order.
+     */
+    private final long[] bounds;
+    /**
+     * The counters of the buckets. Contains one more counter than {@link #bounds} for overflowing values.
+     */
+    private final LongAdder[] buckets;
+    /**
+     * The sum of all recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+    
+    /**
+     * Creates a new {@link Histogram}.
+     *
+     * @param bounds the inclusive upper bounds of the buckets in ascending order
+     */
+    public Histogram(long... bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; ++i)
+            buckets[i] = new LongAdder();
+    }
+    
+    /**
+     * Creates a new {@link Histogram} with exponentially growing bucket bounds.
+     *
+     * @param first  the upper bound of the first bucket
+     * @param factor the factor between the bounds of two buckets
+     * @param count  the amount of buckets without the overflow bucket
+     * @return the new {@link Histogram}
+     */
+    public static Histogram exponential(long first, int factor, int count) {
+        long[] bounds = new long[count];
+        long bound = first;
+        for (int i = 0; i < count; ++i, bound *= factor)
+            bounds[i] = bound;
+        return new Histogram(bounds);
+    }
+    
+    /**
+     * Records a value.
+     *
+     * @param value the value that should be recorded
+     */
+    public void record(long value) {
+        int low = 0, high = bounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        buckets[low].increment();
+        sum.add(value);
+    }
+    
+    /**
+     * Gets the inclusive upper bounds of the buckets.
+     *
+     * @return a copy of the bucket bounds
+     */
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+    
+    /**
+     * Gets the counts of all buckets. The last entry contains the count of values above the highest bound.
+     *
+     * @return the bucket counts
+     */
+    public long[] getCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; ++i)
+            counts[i] = buckets[i].sum();
+        return counts;
+    }
+    
+    /**
+     * Gets the amount of recorded values.
+     *
+     * @return the amount of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets)
+            count += bucket.sum();
+        return count;
+    }
+    
+    /**
+     * Gets the sum of all recorded values.
+     *
+     * @return the sum of all recorded values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+    
+    /**
+     * Gets the upper bound of the bucket containing the given percentile. Values above
+     * the highest bound are reported as {@link Long#MAX_VALUE}.
+     *
+     * @param percentile the percentile (0-100)
+     * @return the upper bound of the bucket containing the percentile or {@code 0} if no values were recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = getCounts();
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        if (total == 0)
+            return 0;
+        long target = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= target && seen > 0)
+                return i < bounds.length ? bounds[i] : Long.MAX_VALUE;
+        }
+        return Long.MAX_VALUE;
+    }
+    
+    /**
+     * Resets all buckets.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets)
+            bucket.reset();
+        sum.reset();
+    }
+    
+}
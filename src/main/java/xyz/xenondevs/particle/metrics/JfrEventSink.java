@@ -0,0 +1,317 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.bukkit.plugin.Plugin;
+import xyz.xenondevs.particle.utils.ReflectionUtils;
+
+/**
+ * The {@link EventSink} emitting Java Flight Recorder events. This class links against
+ * {@code jdk.jfr} and is therefore only loaded by {@link ParticleEvents} if JFR is available.
+ * <p>
+ * The events don't record stack traces and the frequent ones have a default threshold,
+ * so they are cheap enough for continuous recordings. Both can be changed in the JFR settings.
+ *
+ * @author ByteZ
+ */
+final class JfrEventSink implements EventSink {
+    
+    /**
+     * Used to check if {@link PacketCreateEvent PacketCreateEvents} are recorded without allocating.
+     */
+    private static final PacketCreateEvent PACKET_CREATE = new PacketCreateEvent();
+    /**
+     * Used to check if {@link SendEvent SendEvents} are recorded without allocating.
+     */
+    private static final SendEvent SEND = new SendEvent();
+    /**
+     * Used to check if {@link TaskTickEvent TaskTickEvents} are recorded without allocating.
+     */
+    private static final TaskTickEvent TASK_TICK = new TaskTickEvent();
+    /**
+     * Used to check if {@link ReflectionResolveEvent ReflectionResolveEvents} are recorded without allocating.
+     */
+    private static final ReflectionResolveEvent REFLECTION_RESOLVE = new ReflectionResolveEvent();
+    
+    /**
+     * Gets the name of the plugin ParticleLib belongs to.
+     *
+     * @return the name of the plugin or {@code null} if it isn't known yet
+     */
+    private static String getPluginName() {
+        Plugin plugin = ReflectionUtils.getPlugin();
+        return plugin == null ? null : plugin.getName();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginPacketCreate() {
+        if (!PACKET_CREATE.isEnabled())
+            return null;
+        PacketCreateEvent event = new PacketCreateEvent();
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitPacketCreate(Object event, String effect, String dataType, boolean success) {
+        PacketCreateEvent e = (PacketCreateEvent) event;
+        e.end();
+        if (!e.shouldCommit())
+            return;
+        e.plugin = getPluginName();
+        e.effect = effect;
+        e.dataType = dataType;
+        e.success = success;
+        e.commit();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginSend() {
+        if (!SEND.isEnabled())
+            return null;
+        SendEvent event = new SendEvent();
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitSend(Object event, int recipients, int packets) {
+        SendEvent e = (SendEvent) event;
+        e.end();
+        if (!e.shouldCommit())
+            return;
+        e.plugin = getPluginName();
+        e.recipients = recipients;
+        e.packets = packets;
+        e.commit();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginTaskTick() {
+        if (!TASK_TICK.isEnabled())
+            return null;
+        TaskTickEvent event = new TaskTickEvent();
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitTaskTick(Object event, int taskId, String type, int audience) {
+        TaskTickEvent e = (TaskTickEvent) event;
+        e.end();
+        if (!e.shouldCommit())
+            return;
+        e.plugin = getPluginName();
+        e.taskId = taskId;
+        e.type = type;
+        e.audience = audience;
+        e.commit();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginReflectionResolve() {
+        if (!REFLECTION_RESOLVE.isEnabled())
+            return null;
+        ReflectionResolveEvent event = new ReflectionResolveEvent();
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitReflectionResolve(Object event, String kind, String member, boolean found) {
+        ReflectionResolveEvent e = (ReflectionResolveEvent) event;
+        e.end();
+        if (!e.shouldCommit())
+            return;
+        e.plugin = getPluginName();
+        e.kind = kind;
+        e.member = member;
+        e.found = found;
+        e.commit();
+    }
+    
+    /**
+     * Emitted when a {@link xyz.xenondevs.particle.ParticlePacket} is resolved into a
+     * {@link xyz.xenondevs.particle.CompiledParticle}.
+     */
+    @Name("ParticleLib.ParticlePacketCreate")
+    @Label("Particle Packet Create")
+    @Category("ParticleLib")
+    @Description("Resolving a particle effect and its data into the NMS representation")
+    @StackTrace(false)
+    @Threshold("20 us")
+    static final class PacketCreateEvent extends Event {
+        
+        /**
+         * The plugin ParticleLib belongs to.
+         */
+        @Label("Plugin")
+        String plugin;
+        /**
+         * The name of the effect.
+         */
+        @Label("Effect")
+        String effect;
+        /**
+         * The name of the data class.
+         */
+        @Label("Data Type")
+        String dataType;
+        /**
+         * Whether the packet could be created.
+         */
+        @Label("Success")
+        boolean success;
+        
+    }
+    
+    /**
+     * Emitted when the packets of a display are sent to their recipients.
+     */
+    @Name("ParticleLib.ParticleSend")
+    @Label("Particle Send")
+    @Category("ParticleLib")
+    @Description("Sending the packets of one particle display to its recipients")
+    @StackTrace(false)
+    @Threshold("50 us")
+    static final class SendEvent extends Event {
+        
+        /**
+         * The plugin ParticleLib belongs to.
+         */
+        @Label("Plugin")
+        String plugin;
+        /**
+         * The amount of recipients.
+         */
+        @Label("Recipients")
+        int recipients;
+        /**
+         * The amount of packets per recipient.
+         */
+        @Label("Packets")
+        int packets;
+        
+    }
+    
+    /**
+     * Emitted when the {@link xyz.xenondevs.particle.task.TaskManager} runs a task.
+     */
+    @Name("ParticleLib.ParticleTaskTick")
+    @Label("Particle Task Tick")
+    @Category("ParticleLib")
+    @Description("Running one particle task in a tick of the task manager")
+    @StackTrace(false)
+    @Threshold("50 us")
+    static final class TaskTickEvent extends Event {
+        
+        /**
+         * The plugin ParticleLib belongs to.
+         */
+        @Label("Plugin")
+        String plugin;
+        /**
+         * The id of the task.
+         */
+        @Label("Task Id")
+        int taskId;
+        /**
+         * The name of the task class.
+         */
+        @Label("Type")
+        String type;
+        /**
+         * The amount of target players.
+         */
+        @Label("Audience")
+        int audience;
+        
+    }
+    
+    /**
+     * Emitted when a class or member is looked up via reflection.
+     */
+    @Name("ParticleLib.ReflectionResolve")
+    @Label("Reflection Resolve")
+    @Category("ParticleLib")
+    @Description("Looking up a class or member via reflection")
+    @StackTrace(false)
+    static final class ReflectionResolveEvent extends Event {
+        
+        /**
+         * The plugin ParticleLib belongs to.
+         */
+        @Label("Plugin")
+        String plugin;
+        /**
+         * The kind of the member.
+         */
+        @Label("Kind")
+        String kind;
+        /**
+         * The name of the member.
+         */
+        @Label("Member")
+        String member;
+        /**
+         * Whether the member was found.
+         */
+        @Label("Found")
+        boolean found;
+        
+    }
+    
+}
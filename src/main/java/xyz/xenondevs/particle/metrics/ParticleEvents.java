@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+import xyz.xenondevs.particle.ParticleEffect;
+
+/**
+ * Emits Java Flight Recorder events for the particle hot paths, so particle load can
+ * be profiled with a continuous JFR recording. The following events are emitted in
+ * the category {@code ParticleLib}:
+ * <ul>
+ *     <li>{@code ParticleLib.ParticlePacketCreate}: resolving an effect and its data into a
+ *     {@link xyz.xenondevs.particle.CompiledParticle}</li>
+ *     <li>{@code ParticleLib.ParticleSend}: sending the packets of one display to its recipients</li>
+ *     <li>{@code ParticleLib.ParticleTaskTick}: running one task of the
+ *     {@link xyz.xenondevs.particle.task.TaskManager}</li>
+ *     <li>{@code ParticleLib.ReflectionResolve}: looking up a class or member on startup</li>
+ * </ul>
+ * JFR isn't part of the Java 8 API, so the events are only emitted if the {@code jdk.jfr}
+ * package is available at runtime (Java 8u262+ and Java 11+). Otherwise, all methods of
+ * this class are no-ops. While no recording is running, beginning an event costs a single
+ * check and doesn't allocate.
+ *
+ * @author ByteZ
+ */
+public final class ParticleEvents {
+    
+    /**
+     * The {@link EventSink} events are emitted to.
+     */
+    private static final EventSink SINK = loadSink();
+    
+    /**
+     * Private constructor because this is a utility class.
+     */
+    private ParticleEvents() {
+    }
+    
+    /**
+     * Loads the JFR {@link EventSink} by name, so this class doesn't link against
+     * {@code jdk.jfr} if it isn't available.
+     *
+     * @return the JFR {@link EventSink} or {@link EventSink#NONE} if JFR isn't available
+     */
+    private static EventSink loadSink() {
+        try {
+            Class.forName("jdk.jfr.Event", false, ParticleEvents.class.getClassLoader());
+            return (EventSink) Class.forName(ParticleEvents.class.getPackage().getName() + ".JfrEventSink")
+                .getDeclaredConstructor().newInstance();
+        } catch (Throwable ex) {
+            return EventSink.NONE;
+        }
+    }
+    
+    /**
+     * Checks if JFR events can be emitted in the current JVM.
+     *
+     * @return {@code true} if JFR is available
+     */
+    public static boolean isAvailable() {
+        return SINK != EventSink.NONE;
+    }
+    
+    /**
+     * Begins a ParticlePacketCreate event.
+     *
+     * @return the event or {@code null} if it isn't recorded
+     */
+    public static Object beginPacketCreate() {
+        return SINK.beginPacketCreate();
+    }
+    
+    /**
+     * Commits a ParticlePacketCreate event.
+     *
+     * @param event    the event returned by {@link #beginPacketCreate()}
+     * @param effect   the {@link ParticleEffect} or {@code null}
+     * @param dataType the class of the data or {@code null}
+     * @param success  whether the packet could be created
+     */
+    public static void commitPacketCreate(Object event, ParticleEffect effect, Class<?> dataType, boolean success) {
+        if (event != null)
+            SINK.commitPacketCreate(event, effect == null ? null : effect.name(), dataType == null ? null : dataType.getName(), success);
+    }
+    
+    /**
+     * Begins a ParticleSend event.
+     *
+     * @return the event or {@code null} if it isn't recorded
+     */
+    public static Object beginSend() {
+        return SINK.beginSend();
+    }
+    
+    /**
+     * Commits a ParticleSend event.
+     *
+     * @param event      the event returned by {@link #beginSend()}
+     * @param recipients the amount of recipients
+     * @param packets    the amount of packets per recipient
+     */
+    public static void commitSend(Object event, int recipients, int packets) {
+        if (event != null)
+            SINK.commitSend(event, recipients, packets);
+    }
+    
+    /**
+     * Begins a ParticleTaskTick event.
+     *
+     * @return the event or {@code null} if it isn't recorded
+     */
+    public static Object beginTaskTick() {
+        return SINK.beginTaskTick();
+    }
+    
+    /**
+     * Commits a ParticleTaskTick event.
+     *
+     * @param event    the event returned by {@link #beginTaskTick()}
+     * @param taskId   the id of the task
+     * @param type     the class of the task
+     * @param audience the amount of target players
+     */
+    public static void commitTaskTick(Object event, int taskId, Class<?> type, int audience) {
+        if (event != null)
+            SINK.commitTaskTick(event, taskId, type.getSimpleName(), audience);
+    }
+    
+    /**
+     * Begins a ReflectionResolve event.
+     *
+     * @return the event or {@code null} if it isn't recorded
+     */
+    public static Object beginReflectionResolve() {
+        return SINK.beginReflectionResolve();
+    }
+    
+    /**
+     * Commits a ReflectionResolve event.
+     *
+     * @param event  the event returned by {@link #beginReflectionResolve()}
+     * @param kind   the kind of the member, e.g. {@code "method"}
+     * @param owner  the class declaring the member or {@code null}
+     * @param member the name of the member
+     * @param found  whether the member was found
+     */
+    public static void commitReflectionResolve(Object event, String kind, Class<?> owner, String member, boolean found) {
+        if (event != null)
+            SINK.commitReflectionResolve(event, kind, owner == null ? member : owner.getName() + "#" + member, found);
+    }
+    
+}
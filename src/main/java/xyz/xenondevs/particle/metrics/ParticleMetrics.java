@@ -0,0 +1,751 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import xyz.xenondevs.particle.ParticleEffect;
+import xyz.xenondevs.particle.utils.ReflectionUtils;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how many particle packets are created and sent and how long that takes.
+ * All counters are {@link LongAdder LongAdders}, so recording is lock-free and cheap
+ * enough to stay enabled on production servers. Recording can be disabled with
+ * {@link #setEnabled(boolean)} or by starting the server with
+ * {@code -Dxyz.xenondevs.particle.metrics=false}.
+ * <p>
+ * The metrics can be read through this class or over JMX (see {@link ParticleMetricsMXBean}).
+ * Since ParticleLib is usually shaded, every plugin has its own copy of this class and
+ * therefore its own metrics. All copies register their bean in the same JMX domain, so
+ * {@link #collectAll()} can attribute the particle traffic of the whole server to the
+ * plugins causing it. The bean is unregistered when the plugin is disabled.
+ *
+ * @author ByteZ
+ */
+public final class ParticleMetrics implements ParticleMetricsMXBean, Listener {
+    
+    /**
+     * All {@link ParticleEffect ParticleEffects}.
+     */
+    private static final ParticleEffect[] EFFECTS = ParticleEffect.values();
+    /**
+     * All {@link FailureReason FailureReasons}.
+     */
+    private static final FailureReason[] REASONS = FailureReason.values();
+    /**
+     * The JMX domain shared by all copies of ParticleLib.
+     */
+    private static final String DOMAIN = "ParticleLib";
+    /**
+     * The only instance of this class.
+     */
+    private static final ParticleMetrics INSTANCE = new ParticleMetrics();
+    
+    /**
+     * Whether metrics are recorded.
+     */
+    private volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("xyz.xenondevs.particle.metrics"));
+    /**
+     * The amount of created packets indexed by effect ordinal. The last index is used for unknown effects.
+     */
+    private final LongAdder[] created = newAdders(EFFECTS.length + 1);
+    /**
+     * The time spent creating packets in nanoseconds indexed by effect ordinal. Packets
+     * are timed once per display call or batch, single packets created outside of
+     * display calls are only counted.
+     */
+    private final LongAdder[] creationNanos = newAdders(EFFECTS.length + 1);
+    /**
+     * The time spent sending packets in nanoseconds indexed by effect ordinal. Displays
+     * whose effect isn't known (e.g. tasks) are recorded at the last index.
+     */
+    private final LongAdder[] sendNanos = newAdders(EFFECTS.length + 1);
+    /**
+     * The amount of failed packet creations indexed by effect ordinal and reason ordinal.
+     */
+    private final LongAdder[][] failures = new LongAdder[EFFECTS.length + 1][];
+    /**
+     * The amount of sent packets.
+     */
+    private final LongAdder sent = new LongAdder();
+    /**
+     * The amount of bytes written to player channels, as far as the size of the packets is known.
+     */
+    private final LongAdder bytes = new LongAdder();
+    /**
+     * The amount of packets that couldn't be sent.
+     */
+    private final LongAdder sendFailures = new LongAdder();
+    /**
+     * The amount of task executions that threw an exception.
+     */
+    private final LongAdder taskFailures = new LongAdder();
+    /**
+     * The amount of recipients per display.
+     */
+    private final Histogram recipients = Histogram.exponential(1, 2, 10);
+    /**
+     * The time spent per display call or batch creating packets in nanoseconds.
+     */
+    private final Histogram creationTime = Histogram.exponential(250, 4, 10);
+    /**
+     * The time spent per display in nanoseconds.
+     */
+    private final Histogram sendTime = Histogram.exponential(250, 4, 10);
+    /**
+     * The name this instance is currently registered under or {@code null} if it isn't registered.
+     */
+    private ObjectName registeredName;
+    /**
+     * The plugin this instance is registered as a {@link Listener} for or {@code null}.
+     */
+    private Plugin listenerPlugin;
+    
+    /**
+     * Private constructor because this is a singleton.
+     */
+    private ParticleMetrics() {
+        for (int i = 0; i < failures.length; ++i)
+            failures[i] = newAdders(REASONS.length);
+    }
+    
+    static {
+        INSTANCE.registerMBean();
+    }
+    
+    /**
+     * Gets the {@link ParticleMetrics} instance.
+     *
+     * @return the {@link ParticleMetrics} instance
+     */
+    public static ParticleMetrics getMetrics() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Registers this instance on the platform MBeanServer under the name of the plugin
+     * ParticleLib currently belongs to. An existing registration of this instance is
+     * replaced, as is a bean with the same name (e.g. from before a plugin reload).
+     * Failures are ignored because JMX isn't required for the metrics to work.
+     * <p>
+     * Also registers a {@link Listener} that unregisters the bean once the plugin is
+     * disabled, so the MBeanServer doesn't keep the class loader of the plugin alive.
+     *
+     * @see ReflectionUtils#setPlugin(Plugin)
+     */
+    public synchronized void registerMBean() {
+        Plugin plugin = ReflectionUtils.getPlugin();
+        if (plugin != null && plugin != listenerPlugin) {
+            try {
+                Bukkit.getServer().getPluginManager().registerEvents(this, plugin);
+                listenerPlugin = plugin;
+            } catch (Throwable ignored) {
+            }
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":type=ParticleMetrics"
+                + ",plugin=" + ObjectName.quote(plugin == null ? "unknown" : plugin.getName())
+                + ",package=" + ObjectName.quote(ParticleMetrics.class.getPackage().getName()));
+            if (name.equals(registeredName))
+                return;
+            unregisterMBean();
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException ex) {
+                server.unregisterMBean(name);
+                server.registerMBean(this, name);
+            }
+            registeredName = name;
+        } catch (Throwable ignored) {
+        }
+    }
+    
+    /**
+     * Unregisters this instance from the platform MBeanServer. Called automatically
+     * when the plugin ParticleLib belongs to is disabled.
+     */
+    public synchronized void unregisterMBean() {
+        if (registeredName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (Throwable ignored) {
+        }
+        registeredName = null;
+    }
+    
+    /**
+     * Unregisters the bean when the plugin ParticleLib belongs to is disabled.
+     *
+     * @param event The {@link PluginDisableEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin() == ReflectionUtils.getPlugin())
+            unregisterMBean();
+    }
+    
+    /**
+     * Collects the metrics of all copies of ParticleLib in this JVM, including this one.
+     * The copies are found through their beans in the shared JMX domain, so only copies
+     * that could register their bean are included. Attributes that a copy doesn't provide
+     * (e.g. because it is an older version) are reported as {@code 0}.
+     *
+     * @return a snapshot of the metrics of every copy
+     * @see PluginMetrics#merge(String, List)
+     */
+    public static List<PluginMetrics> collectAll() {
+        List<PluginMetrics> list = new ArrayList<>();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : server.queryNames(new ObjectName(DOMAIN + ":type=ParticleMetrics,*"), null)) {
+                String plugin = name.getKeyProperty("plugin");
+                list.add(new PluginMetrics(plugin == null ? "unknown" : ObjectName.unquote(plugin),
+                    readLong(server, name, "PacketsCreated"),
+                    readLong(server, name, "Failures"),
+                    readLong(server, name, "PacketsSent"),
+                    readLong(server, name, "SendFailures"),
+                    readLong(server, name, "BytesSent"),
+                    readLong(server, name, "Displays"),
+                    readLong(server, name, "WallTimeNanos")));
+            }
+        } catch (Exception ignored) {
+        }
+        return list;
+    }
+    
+    /**
+     * Reads a long attribute of a bean.
+     *
+     * @param server    the MBeanServer
+     * @param name      the name of the bean
+     * @param attribute the name of the attribute
+     * @return the value of the attribute or {@code 0} if it can't be read
+     */
+    private static long readLong(MBeanServer server, ObjectName name, String attribute) {
+        try {
+            Object value = server.getAttribute(name, attribute);
+            return value instanceof Number ? ((Number) value).longValue() : 0;
+        } catch (Exception ex) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Creates an array of new {@link LongAdder LongAdders}.
+     *
+     * @param length the length of the array
+     * @return the new array
+     */
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; ++i)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+    
+    /**
+     * Gets the index of the given effect in the per effect arrays.
+     *
+     * @param effect the {@link ParticleEffect} or {@code null}
+     * @return the index of the effect
+     */
+    private static int index(ParticleEffect effect) {
+        return effect == null ? EFFECTS.length : effect.ordinal();
+    }
+    
+    /**
+     * Sums up the given counters.
+     *
+     * @param adders the counters
+     * @return the sum of all counters
+     */
+    private static long sum(LongAdder[] adders) {
+        long sum = 0;
+        for (LongAdder adder : adders)
+            sum += adder.sum();
+        return sum;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Enables or disables the recording of metrics. Already recorded metrics are kept.
+     *
+     * @param enabled whether metrics should be recorded
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Gets the start time for a measurement that is later passed to one of the recording methods.
+     *
+     * @return the current {@link System#nanoTime()} or {@code 0} if metrics are disabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Records created packets.
+     *
+     * @param effect the {@link ParticleEffect} of the packets
+     * @param count  the amount of successfully created packets
+     * @param failed the amount of packets that couldn't be created
+     * @param start  the value returned by {@link #startTimer()} or 0 if the creation wasn't timed
+     */
+    public void recordCreated(ParticleEffect effect, int count, int failed, long start) {
+        if (!enabled)
+            return;
+        int index = index(effect);
+        if (count > 0)
+            created[index].add(count);
+        if (failed > 0)
+            failures[index][FailureReason.EXCEPTION.ordinal()].add(failed);
+        if (start != 0) {
+            long nanos = System.nanoTime() - start;
+            creationNanos[index].add(nanos);
+            creationTime.record(nanos);
+        }
+    }
+    
+    /**
+     * Records that no packet could be created.
+     *
+     * @param effect the {@link ParticleEffect} or {@code null}
+     * @param reason the {@link FailureReason}
+     */
+    public void recordFailure(ParticleEffect effect, FailureReason reason) {
+        if (enabled)
+            failures[index(effect)][reason.ordinal()].increment();
+    }
+    
+    /**
+     * Records a display, i.e. the packets of one display call being sent to all recipients.
+     *
+     * @param recipients the amount of recipients
+     * @param start      the value returned by {@link #startTimer()}
+     * @see #recordDisplay(ParticleEffect, int, long)
+     */
+    public void recordDisplay(int recipients, long start) {
+        recordDisplay(null, recipients, start);
+    }
+    
+    /**
+     * Records a display of the given effect, i.e. the packets of one display call being
+     * sent to all recipients.
+     *
+     * @param effect     the {@link ParticleEffect} of the packets or {@code null} if it isn't known
+     * @param recipients the amount of recipients
+     * @param start      the value returned by {@link #startTimer()}
+     */
+    public void recordDisplay(ParticleEffect effect, int recipients, long start) {
+        if (!enabled)
+            return;
+        this.recipients.record(recipients);
+        if (start != 0) {
+            long nanos = System.nanoTime() - start;
+            sendNanos[index(effect)].add(nanos);
+            sendTime.record(nanos);
+        }
+    }
+    
+    /**
+     * Records packets that were written to a player connection.
+     *
+     * @param count the amount of sent packets
+     */
+    public void recordSent(int count) {
+        if (enabled)
+            sent.add(count);
+    }
+    
+    /**
+     * Records bytes that were written to player channels.
+     *
+     * @param count the amount of bytes
+     */
+    public void recordBytes(long count) {
+        if (enabled && count > 0)
+            bytes.add(count);
+    }
+    
+    /**
+     * Records a packet that couldn't be written to a player connection.
+     */
+    public void recordSendFailure() {
+        if (enabled)
+            sendFailures.increment();
+    }
+    
+    /**
+     * Records a task execution of the {@link xyz.xenondevs.particle.task.TaskManager} that threw an exception.
+     */
+    public void recordTaskFailure() {
+        if (enabled)
+            taskFailures.increment();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPacketsCreated() {
+        return sum(created);
+    }
+    
+    /**
+     * Gets the amount of created packets of the given effect.
+     *
+     * @param effect the {@link ParticleEffect}
+     * @return the amount of created packets
+     */
+    public long getPacketsCreated(ParticleEffect effect) {
+        return created[index(effect)].sum();
+    }
+    
+    /**
+     * Gets the time spent creating packets of the given effect.
+     *
+     * @param effect the {@link ParticleEffect}
+     * @return the time in nanoseconds
+     */
+    public long getCreationTimeNanos(ParticleEffect effect) {
+        return creationNanos[index(effect)].sum();
+    }
+    
+    /**
+     * Gets the time spent sending packets of the given effect.
+     *
+     * @param effect the {@link ParticleEffect} or {@code null} for displays whose effect isn't known
+     * @return the time in nanoseconds
+     */
+    public long getSendTimeNanos(ParticleEffect effect) {
+        return sendNanos[index(effect)].sum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getPacketsCreatedPerEffect() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (ParticleEffect effect : EFFECTS) {
+            long count = created[effect.ordinal()].sum();
+            if (count != 0)
+                map.put(effect.name(), count);
+        }
+        return map;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFailures() {
+        long sum = 0;
+        for (LongAdder[] adders : failures)
+            sum += sum(adders);
+        return sum;
+    }
+    
+    /**
+     * Gets the amount of failed packet creations with the given reason.
+     *
+     * @param reason the {@link FailureReason}
+     * @return the amount of failures
+     */
+    public long getFailures(FailureReason reason) {
+        long sum = 0;
+        for (LongAdder[] adders : failures)
+            sum += adders[reason.ordinal()].sum();
+        return sum;
+    }
+    
+    /**
+     * Gets the amount of failed packet creations of the given effect with the given reason.
+     *
+     * @param effect the {@link ParticleEffect} or {@code null} for unknown effects
+     * @param reason the {@link FailureReason}
+     * @return the amount of failures
+     */
+    public long getFailures(ParticleEffect effect, FailureReason reason) {
+        return failures[index(effect)][reason.ordinal()].sum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getFailuresPerReason() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (FailureReason reason : REASONS)
+            map.put(reason.name(), getFailures(reason));
+        return map;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getFailuresPerEffect() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < failures.length; ++i) {
+            long count = sum(failures[i]);
+            if (count != 0)
+                map.put(i < EFFECTS.length ? EFFECTS[i].name() : "UNKNOWN", count);
+        }
+        return map;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPacketsSent() {
+        return sent.sum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPluginName() {
+        Plugin plugin = ReflectionUtils.getPlugin();
+        return plugin == null ? "unknown" : plugin.getName();
+    }
+    
+    /**
+     * Gets the amount of bytes written to player channels. Only packets whose encoded size is
+     * known are included, which currently are the packets sent via
+     * {@link xyz.xenondevs.particle.utils.ParticleUtils#isPreEncoding() pre-encoding}.
+     *
+     * @return the amount of sent bytes
+     */
+    @Override
+    public long getBytesSent() {
+        return bytes.sum();
+    }
+    
+    /**
+     * Gets the wall time the threads calling ParticleLib spent in the measured sections, i.e.
+     * creating packets in display calls and batches and sending packets. Packets created
+     * outside of display calls aren't timed. This isn't the CPU time of those threads.
+     *
+     * @return the time spent in nanoseconds
+     */
+    @Override
+    public long getWallTimeNanos() {
+        return creationTime.getSum() + sendTime.getSum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSendFailures() {
+        return sendFailures.sum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTaskFailures() {
+        return taskFailures.sum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDisplays() {
+        return recipients.getCount();
+    }
+    
+    /**
+     * Gets the {@link Histogram} of the recipients per display.
+     *
+     * @return the {@link Histogram} of the recipients per display
+     */
+    public Histogram getRecipientHistogram() {
+        return recipients;
+    }
+    
+    /**
+     * Gets the {@link Histogram} of the time spent creating packets per display call or
+     * batch in nanoseconds.
+     *
+     * @return the {@link Histogram} of the packet creation time
+     */
+    public Histogram getCreationTimeHistogram() {
+        return creationTime;
+    }
+    
+    /**
+     * Gets the {@link Histogram} of the time spent per display in nanoseconds.
+     *
+     * @return the {@link Histogram} of the send time
+     */
+    public Histogram getSendTimeHistogram() {
+        return sendTime;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getRecipientBounds() {
+        return recipients.getBounds();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getRecipientCounts() {
+        return recipients.getCounts();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getTimeBounds() {
+        return creationTime.getBounds();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getCreationTimeCounts() {
+        return creationTime.getCounts();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getSendTimeCounts() {
+        return sendTime.getCounts();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCreationTimeNanos() {
+        return creationTime.getSum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getCreationTimeNanosPerEffect() {
+        return perEffect(creationNanos);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSendTimeNanos() {
+        return sendTime.getSum();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getSendTimeNanosPerEffect() {
+        return perEffect(sendNanos);
+    }
+    
+    /**
+     * Maps the non-zero values of the given adders to the names of the effects
+     * they're indexed by. The last index is mapped to {@code UNKNOWN}.
+     *
+     * @param adders the adders indexed by effect ordinal
+     * @return a {@link Map} with the non-zero sums per effect name
+     */
+    private static Map<String, Long> perEffect(LongAdder[] adders) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < adders.length; ++i) {
+            long sum = adders[i].sum();
+            if (sum != 0)
+                map.put(i < EFFECTS.length ? EFFECTS[i].name() : "UNKNOWN", sum);
+        }
+        return map;
+    }
+    
+    /**
+     * Resets all metrics. Metrics recorded concurrently to the reset might get lost.
+     */
+    @Override
+    public void reset() {
+        for (LongAdder adder : created)
+            adder.reset();
+        for (LongAdder adder : creationNanos)
+            adder.reset();
+        for (LongAdder adder : sendNanos)
+            adder.reset();
+        for (LongAdder[] adders : failures)
+            for (LongAdder adder : adders)
+                adder.reset();
+        sent.reset();
+        bytes.reset();
+        sendFailures.reset();
+        taskFailures.reset();
+        recipients.reset();
+        creationTime.reset();
+        sendTime.reset();
+    }
+    
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link ParticleMetrics}. The bean is registered on the platform
+ * MBeanServer under {@code ParticleLib:type=ParticleMetrics,plugin=<plugin>,package=<package>}
+ * where {@code <plugin>} is the plugin ParticleLib is shaded into and {@code <package>} is the
+ * (possibly relocated) package of ParticleLib.
+ *
+ * @author ByteZ
+ * @see ParticleMetrics
+ */
+public interface ParticleMetricsMXBean {
+    
+    /**
+     * @return whether metrics are currently recorded
+     * @see ParticleMetrics#isEnabled()
+     */
+    boolean isEnabled();
+    
+    /**
+     * @param enabled whether metrics should be recorded
+     * @see ParticleMetrics#setEnabled(boolean)
+     */
+    void setEnabled(boolean enabled);
+    
+    /**
+     * @return the total amount of created packets
+     * @see ParticleMetrics#getPacketsCreated()
+     */
+    long getPacketsCreated();
+    
+    /**
+     * @return the amount of created packets per effect
+     */
+    Map<String, Long> getPacketsCreatedPerEffect();
+    
+    /**
+     * @return the total amount of failed packet creations
+     */
+    long getFailures();
+    
+    /**
+     * @return the amount of failed packet creations per reason
+     */
+    Map<String, Long> getFailuresPerReason();
+    
+    /**
+     * @return the amount of failed packet creations per effect
+     */
+    Map<String, Long> getFailuresPerEffect();
+    
+    /**
+     * @return the total amount of sent packets
+     * @see ParticleMetrics#getPacketsSent()
+     */
+    long getPacketsSent();
+    
+    /**
+     * @return the name of the plugin this copy of ParticleLib belongs to
+     */
+    String getPluginName();
+    
+    /**
+     * @return the amount of bytes written to player channels
+     * @see ParticleMetrics#getBytesSent()
+     */
+    long getBytesSent();
+    
+    /**
+     * @return the wall time spent creating packets in display calls and batches and sending packets in nanoseconds
+     * @see ParticleMetrics#getWallTimeNanos()
+     */
+    long getWallTimeNanos();
+    
+    /**
+     * @return the total amount of packets that couldn't be sent
+     * @see ParticleMetrics#getSendFailures()
+     */
+    long getSendFailures();
+    
+    /**
+     * @return the total amount of task executions that threw an exception
+     */
+    long getTaskFailures();
+    
+    /**
+     * @return the total amount of displays
+     * @see ParticleMetrics#getDisplays()
+     */
+    long getDisplays();
+    
+    /**
+     * @return the bucket bounds of {@link #getRecipientCounts()}
+     */
+    long[] getRecipientBounds();
+    
+    /**
+     * @return the bucket counts of the recipients per display
+     */
+    long[] getRecipientCounts();
+    
+    /**
+     * @return the bucket bounds of {@link #getCreationTimeCounts()} and {@link #getSendTimeCounts()} in nanoseconds
+     */
+    long[] getTimeBounds();
+    
+    /**
+     * @return the bucket counts of the time spent creating packets per display call or batch
+     */
+    long[] getCreationTimeCounts();
+    
+    /**
+     * @return the bucket counts of the time spent sending packets
+     */
+    long[] getSendTimeCounts();
+    
+    /**
+     * @return the total time spent creating packets in display calls and batches in nanoseconds
+     */
+    long getCreationTimeNanos();
+    
+    /**
+     * @return the time spent creating packets per effect in nanoseconds
+     */
+    Map<String, Long> getCreationTimeNanosPerEffect();
+    
+    /**
+     * @return the total time spent sending packets in nanoseconds
+     */
+    long getSendTimeNanos();
+    
+    /**
+     * @return the time spent sending packets per effect in nanoseconds
+     */
+    Map<String, Long> getSendTimeNanosPerEffect();
+    
+    /**
+     * Resets all metrics.
+     *
+     * @see ParticleMetrics#reset()
+     */
+    void reset();
+    
+}
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.metrics;
+
+import java.util.List;
+
+/**
+ * An immutable snapshot of the metrics of one copy of ParticleLib, attributed to the
+ * plugin that copy belongs to.
+ *
+ * @author ByteZ
+ * @see ParticleMetrics#collectAll()
+ */
+public final class PluginMetrics {
+    
+    /**
+     * The name of the plugin.
+     */
+    private final String plugin;
+    /**
+     * The amount of created packets.
+     */
+    private final long packetsCreated;
+    /**
+     * The amount of failed packet creations.
+     */
+    private final long failures;
+    /**
+     * The amount of sent packets.
+     */
+    private final long packetsSent;
+    /**
+     * The amount of packets that couldn't be sent.
+     */
+    private final long sendFailures;
+    /**
+     * The amount of sent bytes.
+     */
+    private final long bytesSent;
+    /**
+     * The amount of displays.
+     */
+    private final long displays;
+    /**
+     * The wall time spent creating packets in display calls and batches and sending packets in nanoseconds.
+     */
+    private final long wallTimeNanos;
+    
+    /**
+     * Creates a new {@link PluginMetrics} snapshot.
+     *
+     * @param plugin         the name of the plugin
+     * @param packetsCreated the amount of created packets
+     * @param failures       the amount of failed packet creations
+     * @param packetsSent    the amount of sent packets
+     * @param sendFailures   the amount of packets that couldn't be sent
+     * @param bytesSent      the amount of sent bytes
+     * @param displays       the amount of displays
+     * @param wallTimeNanos  the wall time spent in the measured sections in nanoseconds
+     */
+    public PluginMetrics(String plugin, long packetsCreated, long failures, long packetsSent, long sendFailures, long bytesSent, long displays, long wallTimeNanos) {
+        this.plugin = plugin;
+        this.packetsCreated = packetsCreated;
+        this.failures = failures;
+        this.packetsSent = packetsSent;
+        this.sendFailures = sendFailures;
+        this.bytesSent = bytesSent;
+        this.displays = displays;
+        this.wallTimeNanos = wallTimeNanos;
+    }
+    
+    /**
+     * Merges the given snapshots into one by summing up all counters.
+     *
+     * @param plugin  the name of the merged snapshot
+     * @param metrics the snapshots that should be merged
+     * @return the merged snapshot
+     */
+    public static PluginMetrics merge(String plugin, List<PluginMetrics> metrics) {
+        long packetsCreated = 0, failures = 0, packetsSent = 0, sendFailures = 0, bytesSent = 0, displays = 0, wallTimeNanos = 0;
+        for (PluginMetrics m : metrics) {
+            packetsCreated += m.packetsCreated;
+            failures += m.failures;
+            packetsSent += m.packetsSent;
+            sendFailures += m.sendFailures;
+            bytesSent += m.bytesSent;
+            displays += m.displays;
+            wallTimeNanos += m.wallTimeNanos;
+        }
+        return new PluginMetrics(plugin, packetsCreated, failures, packetsSent, sendFailures, bytesSent, displays, wallTimeNanos);
+    }
+    
+    /**
+     * Gets the name of the plugin.
+     *
+     * @return the name of the plugin
+     */
+    public String getPlugin() {
+        return plugin;
+    }
+    
+    /**
+     * Gets the amount of created packets.
+     *
+     * @return the amount of created packets
+     */
+    public long getPacketsCreated() {
+        return packetsCreated;
+    }
+    
+    /**
+     * Gets the amount of failed packet creations.
+     *
+     * @return the amount of failed packet creations
+     */
+    public long getFailures() {
+        return failures;
+    }
+    
+    /**
+     * Gets the amount of sent packets.
+     *
+     * @return the amount of sent packets
+     */
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+    
+    /**
+     * Gets the amount of packets that couldn't be sent.
+     *
+     * @return the amount of packets that couldn't be sent
+     */
+    public long getSendFailures() {
+        return sendFailures;
+    }
+    
+    /**
+     * Gets the amount of sent bytes.
+     *
+     * @return the amount of sent bytes
+     * @see ParticleMetrics#getBytesSent()
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+    
+    /**
+     * Gets the amount of displays.
+     *
+     * @return the amount of displays
+     */
+    public long getDisplays() {
+        return displays;
+    }
+    
+    /**
+     * Gets the wall time spent creating packets in display calls and batches and sending
+     * packets. Packets created outside of display calls (e.g. via
+     * {@link xyz.xenondevs.particle.ParticleBuilder#toPacket()}) are counted but not timed.
+     *
+     * @return the time in nanoseconds
+     * @see ParticleMetrics#getWallTimeNanos()
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return plugin + "{packetsCreated=" + packetsCreated + ", failures=" + failures
+            + ", packetsSent=" + packetsSent + ", sendFailures=" + sendFailures
+            + ", bytesSent=" + bytesSent + ", displays=" + displays
+            + ", wallTimeNanos=" + wallTimeNanos + "}";
+    }
+    
+}
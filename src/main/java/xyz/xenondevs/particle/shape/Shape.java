@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.shape;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of points stored as a structure of arrays. Unit shapes
+ * created by {@link Shapes} are centered at the origin and can be reused at
+ * any location and size using {@link #toXYZ(double, double, double, double)}.
+ *
+ * @author ByteZ
+ * @see Shapes
+ */
+public final class Shape {
+    
+    /**
+     * The x coordinates of the points.
+     */
+    private final double[] x;
+    /**
+     * The y coordinates of the points.
+     */
+    private final double[] y;
+    /**
+     * The z coordinates of the points.
+     */
+    private final double[] z;
+    
+    /**
+     * Creates a new {@link Shape} without copying the arrays.
+     *
+     * @param x the x coordinates of the points
+     * @param y the y coordinates of the points
+     * @param z the z coordinates of the points
+     */
+    Shape(double[] x, double[] y, double[] z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+    
+    /**
+     * Creates a new {@link Shape} from copies of the given coordinates.
+     *
+     * @param x the x coordinates of the points
+     * @param y the y coordinates of the points
+     * @param z the z coordinates of the points
+     * @return the new {@link Shape}
+     * @throws IllegalArgumentException if the arrays don't have the same length
+     */
+    public static Shape of(double[] x, double[] y, double[] z) {
+        if (x.length != y.length || x.length != z.length)
+            throw new IllegalArgumentException("All coordinate arrays need the same length");
+        return new Shape(x.clone(), y.clone(), z.clone());
+    }
+    
+    /**
+     * Gets the amount of points.
+     *
+     * @return the amount of points
+     */
+    public int size() {
+        return x.length;
+    }
+    
+    /**
+     * Gets the x coordinate of a point.
+     *
+     * @param index the index of the point
+     * @return the x coordinate
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+    
+    /**
+     * Gets the y coordinate of a point.
+     *
+     * @param index the index of the point
+     * @return the y coordinate
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+    
+    /**
+     * Gets the z coordinate of a point.
+     *
+     * @param index the index of the point
+     * @return the z coordinate
+     */
+    public double getZ(int index) {
+        return z[index];
+    }
+    
+    /**
+     * Scales the shape uniformly, moves it to the given origin and returns the
+     * coordinates in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     *
+     * @param originX the x coordinate of the origin
+     * @param originY the y coordinate of the origin
+     * @param originZ the z coordinate of the origin
+     * @param scale   the scale of the shape
+     * @return the translated coordinates
+     */
+    public double[] toXYZ(double originX, double originY, double originZ, double scale) {
+        return toXYZ(originX, originY, originZ, scale, scale, scale);
+    }
+    
+    /**
+     * Scales the shape, moves it to the given origin and returns the coordinates
+     * in the order {@code x0, y0, z0, x1, y1, z1, ...}.
+     *
+     * @param originX the x coordinate of the origin
+     * @param originY the y coordinate of the origin
+     * @param originZ the z coordinate of the origin
+     * @param scaleX  the scale on the x axis
+     * @param scaleY  the scale on the y axis
+     * @param scaleZ  the scale on the z axis
+     * @return the translated coordinates
+     */
+    public double[] toXYZ(double originX, double originY, double originZ, double scaleX, double scaleY, double scaleZ) {
+        double[] xyz = new double[x.length * 3];
+        writeXYZ(originX, originY, originZ, scaleX, scaleY, scaleZ, xyz, 0);
+        return xyz;
+    }
+    
+    /**
+     * Scales the shape, moves it to the given origin and writes the coordinates into
+     * the given array in the order {@code x0, y0, z0, x1, y1, z1, ...}. Can be used to
+     * reuse the same array for multiple frames.
+     *
+     * @param originX the x coordinate of the origin
+     * @param originY the y coordinate of the origin
+     * @param originZ the z coordinate of the origin
+     * @param scaleX  the scale on the x axis
+     * @param scaleY  the scale on the y axis
+     * @param scaleZ  the scale on the z axis
+     * @param target  the array the coordinates should be written to
+     * @param offset  the index in the array the first coordinate should be written to
+     */
+    public void writeXYZ(double originX, double originY, double originZ, double scaleX, double scaleY, double scaleZ, double[] target, int offset) {
+        for (int i = 0, index = offset; i < x.length; ++i, index += 3) {
+            target[index] = originX + x[i] * scaleX;
+            target[index + 1] = originY + y[i] * scaleY;
+            target[index + 2] = originZ + z[i] * scaleZ;
+        }
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Shape))
+            return false;
+        Shape other = (Shape) obj;
+        return Arrays.equals(x, other.x) && Arrays.equals(y, other.y) && Arrays.equals(z, other.z);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(x) + Arrays.hashCode(y)) + Arrays.hashCode(z);
+    }
+    
+}
@@ -0,0 +1,291 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.shape;
+
+import xyz.xenondevs.particle.utils.BoundedCache;
+
+/**
+ * Factory methods for common {@link Shape Shapes}. Unit shapes are centered at
+ * the origin, generated using the shared {@link TrigTable} and cached by their
+ * resolution, so displaying the same shape at different locations and sizes
+ * doesn't generate it again.
+ *
+ * @author ByteZ
+ * @see Shape
+ */
+public final class Shapes {
+    
+    /**
+     * The golden angle in radians used to distribute points on a sphere.
+     */
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+    
+    /**
+     * The cached unit shapes.
+     */
+    private static final BoundedCache<Key, Shape> CACHE = new BoundedCache<>(256);
+    
+    /**
+     * Private constructor because this is a utility class.
+     */
+    private Shapes() {
+    }
+    
+    /**
+     * Gets a circle with a radius of 1 on the xz plane.
+     *
+     * @param points the amount of points
+     * @return the cached unit circle
+     */
+    public static Shape circle(int points) {
+        checkPositive(points, "points");
+        return CACHE.get(new Key(Type.CIRCLE, points, 0, 0), key -> {
+            double[] x = new double[points], y = new double[points], z = new double[points];
+            double step = 2 * Math.PI / points;
+            for (int i = 0; i < points; ++i) {
+                x[i] = TrigTable.cos(i * step);
+                z[i] = TrigTable.sin(i * step);
+            }
+            return new Shape(x, y, z);
+        });
+    }
+    
+    /**
+     * Gets a sphere with a radius of 1. The points are evenly distributed on
+     * the surface using a Fibonacci lattice.
+     *
+     * @param points the amount of points
+     * @return the cached unit sphere
+     */
+    public static Shape sphere(int points) {
+        checkPositive(points, "points");
+        return CACHE.get(new Key(Type.SPHERE, points, 0, 0), key -> {
+            double[] x = new double[points], y = new double[points], z = new double[points];
+            for (int i = 0; i < points; ++i) {
+                double height = 1 - 2 * (i + 0.5) / points;
+                double radius = Math.sqrt(1 - height * height);
+                double angle = i * GOLDEN_ANGLE;
+                x[i] = TrigTable.cos(angle) * radius;
+                y[i] = height;
+                z[i] = TrigTable.sin(angle) * radius;
+            }
+            return new Shape(x, y, z);
+        });
+    }
+    
+    /**
+     * Gets a helix with a radius of 1 and a height of 1 around the y axis. Like all
+     * shapes, the helix is centered at the origin, so it goes from a height of -0.5
+     * to a height of 0.5.
+     *
+     * @param points the amount of points
+     * @param turns  the amount of full turns
+     * @return the cached unit helix
+     */
+    public static Shape helix(int points, double turns) {
+        checkPositive(points, "points");
+        return CACHE.get(new Key(Type.HELIX, points, 0, turns), key -> {
+            double[] x = new double[points], y = new double[points], z = new double[points];
+            double progress = points == 1 ? 0 : 1d / (points - 1);
+            for (int i = 0; i < points; ++i) {
+                double angle = 2 * Math.PI * turns * i * progress;
+                x[i] = TrigTable.cos(angle);
+                y[i] = i * progress - 0.5;
+                z[i] = TrigTable.sin(angle);
+            }
+            return new Shape(x, y, z);
+        });
+    }
+    
+    /**
+     * Gets the outline of a regular polygon with a circumradius of 1 on the xz plane.
+     *
+     * @param sides         the amount of sides (at least 3)
+     * @param pointsPerSide the amount of points on each side including the start vertex
+     * @return the cached unit polygon
+     */
+    public static Shape polygon(int sides, int pointsPerSide) {
+        if (sides < 3)
+            throw new IllegalArgumentException("A polygon needs at least 3 sides");
+        checkPositive(pointsPerSide, "pointsPerSide");
+        return CACHE.get(new Key(Type.POLYGON, sides, pointsPerSide, 0), key -> {
+            int points = sides * pointsPerSide;
+            double[] x = new double[points], y = new double[points], z = new double[points];
+            double step = 2 * Math.PI / sides;
+            for (int side = 0, index = 0; side < sides; ++side) {
+                double startX = TrigTable.cos(side * step), startZ = TrigTable.sin(side * step);
+                double endX = TrigTable.cos((side + 1) * step), endZ = TrigTable.sin((side + 1) * step);
+                for (int i = 0; i < pointsPerSide; ++i, ++index) {
+                    double progress = (double) i / pointsPerSide;
+                    x[index] = startX + (endX - startX) * progress;
+                    z[index] = startZ + (endZ - startZ) * progress;
+                }
+            }
+            return new Shape(x, y, z);
+        });
+    }
+    
+    /**
+     * Gets the outline of a cube with an edge length of 1 centered at the origin.
+     * Scale it per axis to get cuboids of any size.
+     *
+     * @param pointsPerEdge the amount of points on each edge including both corners (at least 2)
+     * @return the cached unit cube outline
+     */
+    public static Shape cuboidOutline(int pointsPerEdge) {
+        if (pointsPerEdge < 2)
+            throw new IllegalArgumentException("An edge needs at least 2 points");
+        return CACHE.get(new Key(Type.CUBOID, pointsPerEdge, 0, 0), key -> {
+            int inner = pointsPerEdge - 2;
+            int points = 8 + 12 * inner;
+            double[] x = new double[points], y = new double[points], z = new double[points];
+            int index = 0;
+            for (int corner = 0; corner < 8; ++corner, ++index) {
+                x[index] = (corner & 1) - 0.5;
+                y[index] = (corner >> 1 & 1) - 0.5;
+                z[index] = (corner >> 2 & 1) - 0.5;
+            }
+            double step = 1d / (pointsPerEdge - 1);
+            for (int axis = 0; axis < 3; ++axis) {
+                for (int edge = 0; edge < 4; ++edge) {
+                    double a = (edge & 1) - 0.5, b = (edge >> 1 & 1) - 0.5;
+                    for (int i = 1; i <= inner; ++i, ++index) {
+                        double t = i * step - 0.5;
+                        x[index] = axis == 0 ? t : a;
+                        y[index] = axis == 1 ? t : (axis == 0 ? a : b);
+                        z[index] = axis == 2 ? t : b;
+                    }
+                }
+            }
+            return new Shape(x, y, z);
+        });
+    }
+    
+    /**
+     * Creates a line from the origin to the given point. Lines aren't cached
+     * because their direction can't be changed by scaling.
+     *
+     * @param dx     the x coordinate of the end point relative to the start
+     * @param dy     the y coordinate of the end point relative to the start
+     * @param dz     the z coordinate of the end point relative to the start
+     * @param points the amount of points including both ends
+     * @return the new line
+     */
+    public static Shape line(double dx, double dy, double dz, int points) {
+        checkPositive(points, "points");
+        double[] x = new double[points], y = new double[points], z = new double[points];
+        double progress = points == 1 ? 0 : 1d / (points - 1);
+        for (int i = 0; i < points; ++i) {
+            x[i] = dx * i * progress;
+            y[i] = dy * i * progress;
+            z[i] = dz * i * progress;
+        }
+        return new Shape(x, y, z);
+    }
+    
+    /**
+     * Gets the underlying {@link BoundedCache} e.g. to read the hit and miss counters.
+     *
+     * @return the {@link BoundedCache} holding the unit shapes
+     */
+    public static BoundedCache<?, Shape> getCache() {
+        return CACHE;
+    }
+    
+    /**
+     * Checks that the given value is positive.
+     *
+     * @param value the value that should be checked
+     * @param name  the name of the value
+     */
+    private static void checkPositive(int value, String name) {
+        if (value <= 0)
+            throw new IllegalArgumentException(name + " must be positive");
+    }
+    
+    /**
+     * The types of cached shapes.
+     */
+    private enum Type {
+        CIRCLE, SPHERE, HELIX, POLYGON, CUBOID
+    }
+    
+    /**
+     * The key of a cached unit shape.
+     */
+    private static final class Key {
+        
+        /**
+         * The {@link Type} of the shape.
+         */
+        private final Type type;
+        /**
+         * The first integer parameter of the shape.
+         */
+        private final int first;
+        /**
+         * The second integer parameter of the shape.
+         */
+        private final int second;
+        /**
+         * The decimal parameter of the shape.
+         */
+        private final double decimal;
+        
+        /**
+         * Creates a new {@link Key}.
+         *
+         * @param type    the {@link Type} of the shape
+         * @param first   the first integer parameter of the shape
+         * @param second  the second integer parameter of the shape
+         * @param decimal the decimal parameter of the shape
+         */
+        private Key(Type type, int first, int second, double decimal) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+            this.decimal = decimal;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return type == other.type && first == other.first && second == other.second
+                && Double.doubleToLongBits(decimal) == Double.doubleToLongBits(other.decimal);
+        }
+        
+        @Override
+        public int hashCode() {
+            int hash = 31 * type.hashCode() + first;
+            hash = 31 * hash + second;
+            return 31 * hash + Long.hashCode(Double.doubleToLongBits(decimal));
+        }
+    }
+    
+}
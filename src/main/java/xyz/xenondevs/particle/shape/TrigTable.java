@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.shape;
+
+/**
+ * Shared precomputed sine and cosine tables. Values between the
+ * entries of the table are linearly interpolated, which keeps the
+ * error below {@code 1e-6}.
+ *
+ * @author ByteZ
+ */
+public final class TrigTable {
+    
+    /**
+     * The amount of entries per full turn. Has to be a power of two.
+     */
+    private static final int SIZE = 4096;
+    /**
+     * The mask used to wrap indices around.
+     */
+    private static final int MASK = SIZE - 1;
+    /**
+     * The factor to convert radians to table indices.
+     */
+    private static final double RADIANS_TO_INDEX = SIZE / (2 * Math.PI);
+    /**
+     * The sine values of a full turn. Contains one more entry than {@link #SIZE}
+     * so interpolation never has to wrap around.
+     */
+    private static final double[] SIN = new double[SIZE + 1];
+    
+    static {
+        for (int i = 0; i <= SIZE; ++i)
+            SIN[i] = Math.sin(i / RADIANS_TO_INDEX);
+    }
+    
+    /**
+     * Private constructor because this is a utility class.
+     */
+    private TrigTable() {
+    }
+    
+    /**
+     * Gets the sine of the given angle.
+     *
+     * @param radians the angle in radians
+     * @return the sine of the angle
+     */
+    public static double sin(double radians) {
+        double index = radians * RADIANS_TO_INDEX;
+        double floor = Math.floor(index);
+        int i = (int) ((long) floor & MASK);
+        double fraction = index - floor;
+        return SIN[i] + (SIN[i + 1] - SIN[i]) * fraction;
+    }
+    
+    /**
+     * Gets the cosine of the given angle.
+     *
+     * @param radians the angle in radians
+     * @return the cosine of the angle
+     */
+    public static double cos(double radians) {
+        return sin(radians + Math.PI / 2);
+    }
+    
+}
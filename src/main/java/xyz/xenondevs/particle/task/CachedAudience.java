@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.task;
+
+import org.bukkit.entity.Player;
+import xyz.xenondevs.particle.utils.RecipientRegistry;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches the target {@link Player Players} of a {@link ParticleTask}. The
+ * audience is only re-evaluated if the {@link RecipientRegistry#getGeneration()
+ * audience generation} changed or the re-evaluation interval elapsed. In
+ * between, the same unmodifiable recipient {@link List} is returned.
+ *
+ * @author ByteZ
+ * @see FilteredTask
+ * @see SuppliedTask
+ */
+final class CachedAudience {
+    
+    /**
+     * The amount of ticks after which the audience is re-evaluated even
+     * if the audience generation didn't change.
+     */
+    private final int interval;
+    /**
+     * The amount of ticks between each execution of the task.
+     */
+    private final int tickDelay;
+    /**
+     * The cached recipients.
+     */
+    private List<Player> recipients;
+    /**
+     * The audience generation the {@link #recipients} were evaluated in.
+     */
+    private long generation;
+    /**
+     * The amount of ticks since the last evaluation.
+     */
+    private int elapsed;
+    
+    /**
+     * Creates a new {@link CachedAudience}.
+     *
+     * @param interval  the amount of ticks after which the audience is re-evaluated
+     * @param tickDelay the amount of ticks between each execution of the task
+     */
+    CachedAudience(int interval, int tickDelay) {
+        this.interval = interval;
+        this.tickDelay = Math.max(1, tickDelay);
+    }
+    
+    /**
+     * Gets the cached recipients or re-evaluates them using the given {@link Supplier}
+     * if the cache is outdated.
+     *
+     * @param evaluator the {@link Supplier} used to evaluate the audience
+     * @return an unmodifiable {@link List} of the target {@link Player Players}
+     */
+    synchronized List<Player> get(Supplier<Collection<Player>> evaluator) {
+        long current = RecipientRegistry.getRegistry().getGeneration();
+        elapsed += tickDelay;
+        if (recipients == null || generation != current || elapsed >= interval) {
+            Collection<Player> players = evaluator.get();
+            recipients = players == null || players.isEmpty()
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(players.toArray(new Player[0])));
+            generation = current;
+            elapsed = 0;
+        }
+        return recipients;
+    }
+    
+}
@@ -37,6 +37,11 @@ import java.util.stream.Collectors;
  * A {@link ParticleTask} implementation using a java
  * {@link Predicate} to only send the packets to {@link Player Players}
  * that match the filter.
+ * <p>
+ * If a re-evaluation interval is specified, the filter is only applied
+ * when players join, quit or change the world, when
+ * {@link xyz.xenondevs.particle.utils.RecipientRegistry#invalidate()} is called
+ * or when the interval elapsed. In between, the cached recipients are reused.
  *
  * @author ByteZ
  * @see ParticleTask
@@ -47,6 +52,10 @@ public final class FilteredTask extends ParticleTask {
      * The {@link Predicate} used to filter all online players
      */
     private final Predicate<Player> filter;
+    /**
+     * The cached audience or {@code null} if the filter should be applied on every execution
+     */
+    private final CachedAudience audience;
     
     /**
      * Creates a new {@link FilteredTask}
@@ -56,8 +65,23 @@ public final class FilteredTask extends ParticleTask {
      * @param filter    The {@link Predicate} to filter the {@link Player Players}
      */
     public FilteredTask(List<Object> packets, int tickDelay, Predicate<Player> filter) {
+        this(packets, tickDelay, filter, 0);
+    }
+    
+    /**
+     * Creates a new {@link FilteredTask} with incremental audience tracking.
+     *
+     * @param packets              {@link List} of packets
+     * @param tickDelay            The delay of ticks between each execution
+     * @param filter               The {@link Predicate} to filter the {@link Player Players}
+     * @param reevaluationInterval The amount of ticks after which the filter is applied again even
+     *                             if no player joined, quit or changed the world. A value of {@code 0}
+     *                             or less applies the filter on every execution.
+     */
+    public FilteredTask(List<Object> packets, int tickDelay, Predicate<Player> filter, int reevaluationInterval) {
         super(packets, tickDelay);
         this.filter = Objects.requireNonNull(filter);
+        this.audience = reevaluationInterval > 0 ? new CachedAudience(reevaluationInterval, tickDelay) : null;
     }
     
     /**
@@ -69,6 +93,15 @@ public final class FilteredTask extends ParticleTask {
      */
     @Override
     public Collection<Player> getTargetPlayers() {
+        return audience == null ? filterPlayers() : audience.get(this::filterPlayers);
+    }
+    
+    /**
+     * Applies the {@link #filter} to all online {@link Player Players}.
+     *
+     * @return a list of {@link Player Players} matching the {@link #filter}
+     */
+    private Collection<Player> filterPlayers() {
         return Bukkit.getOnlinePlayers().stream().filter(filter).collect(Collectors.toList());
     }
 }
@@ -26,7 +26,12 @@ package xyz.xenondevs.particle.task;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import xyz.xenondevs.particle.ParticleConstants;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
+import xyz.xenondevs.particle.utils.ReflectionUtils;
+import xyz.xenondevs.particle.utils.RecipientRegistry;
 
+import java.lang.invoke.MethodHandle;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -35,6 +40,12 @@ import java.util.UUID;
 /**
  * A {@link ParticleTask} implementation that only
  * targets a single {@link Player}.
+ * <p>
+ * The target {@link Player} and its PlayerConnection are resolved once and
+ * cached until a player joins, quits or changes the world. A player only gets
+ * a new PlayerConnection by rejoining, so the cache doesn't have to check the
+ * connection itself. Sending the
+ * packets of this task therefore doesn't require any lookups or allocations.
  *
  * @author ByteZ
  * @see ParticleTask
@@ -45,6 +56,10 @@ public final class SingularTask extends ParticleTask {
      * The {@link UUID} of the target {@link Player}
      */
     private final UUID target;
+    /**
+     * The currently cached target or {@code null} if it hasn't been resolved yet.
+     */
+    private volatile CachedTarget cached;
     
     /**
      * Creates a new {@link SingularTask}.
@@ -78,7 +93,85 @@ public final class SingularTask extends ParticleTask {
      */
     @Override
     public List<Player> getTargetPlayers() {
-        Player player = Bukkit.getPlayer(target);
-        return player == null ? Collections.EMPTY_LIST : Collections.singletonList(player);
+        return resolve().players;
+    }
+    
+    /**
+     * Sends the packets of this task to the cached PlayerConnection of the
+     * target {@link Player}. Doesn't allocate if the target is cached.
+     *
+     * @return the amount of recipients, i.e. 1 if the target is online and 0 otherwise
+     */
+    int sendPackets() {
+        Object connection = resolve().connection;
+        MethodHandle sendPacket = ParticleConstants.PLAYER_CONNECTION_SEND_PACKET_HANDLE;
+        if (connection == null || sendPacket == null)
+            return 0;
+        List<Object> packets = getPackets();
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        int sent = 0;
+        for (int i = 0, size = packets.size(); i < size; ++i) {
+            try {
+                sendPacket.invokeExact(connection, packets.get(i));
+                ++sent;
+            } catch (Throwable ignored) {// Ignored in case non packet objects are in the packets List
+                metrics.recordSendFailure();
+            }
+        }
+        metrics.recordSent(sent);
+        return 1;
+    }
+    
+    /**
+     * Gets the cached target or resolves it again if the audience of
+     * the server changed since it was cached.
+     * <p>
+     * If the {@link RecipientRegistry} hasn't been initialized yet, the
+     * generation can't be trusted and the target is resolved on every call.
+     *
+     * @return the current {@link CachedTarget}
+     */
+    private CachedTarget resolve() {
+        RecipientRegistry registry = RecipientRegistry.getRegistry();
+        long generation = registry.getGeneration();
+        CachedTarget current = cached;
+        if (current == null || current.generation != generation || !registry.isInitialized()) {
+            Player player = Bukkit.getPlayer(target);
+            current = new CachedTarget(player, player == null ? null : ReflectionUtils.getPlayerConnection(player), generation);
+            cached = current;
+        }
+        return current;
+    }
+    
+    /**
+     * An immutable snapshot of the resolved target {@link Player}.
+     */
+    private static final class CachedTarget {
+        
+        /**
+         * A singleton list with the target {@link Player} or an empty list if the player isn't online.
+         */
+        private final List<Player> players;
+        /**
+         * The PlayerConnection of the target {@link Player} or {@code null} if the player isn't online.
+         */
+        private final Object connection;
+        /**
+         * The audience generation the target was resolved in.
+         */
+        private final long generation;
+        
+        /**
+         * Creates a new {@link CachedTarget}.
+         *
+         * @param player     the target {@link Player} or {@code null} if the player isn't online
+         * @param connection the PlayerConnection of the target {@link Player}
+         * @param generation the audience generation the target was resolved in
+         */
+        private CachedTarget(Player player, Object connection, long generation) {
+            this.players = player == null ? Collections.emptyList() : Collections.singletonList(player);
+            this.connection = connection;
+            this.generation = generation;
+        }
     }
 }
@@ -35,6 +35,11 @@ import java.util.function.Supplier;
  * A {@link ParticleTask} implementation using a {@link Supplier}
  * to retrieve the target {@link Player Players}. The Supplier
  * is called each time {@link #getTargetPlayers()} is called.
+ * <p>
+ * If a re-evaluation interval is specified, the Supplier is only called
+ * when players join, quit or change the world, when
+ * {@link xyz.xenondevs.particle.utils.RecipientRegistry#invalidate()} is called
+ * or when the interval elapsed. In between, the cached recipients are reused.
  *
  * @author ByteZ
  * @see ParticleTask
@@ -45,6 +50,10 @@ public final class SuppliedTask extends ParticleTask {
      * The {@link Supplier} used to retrieve the target {@link Player Players}
      */
     private final Supplier<Collection<Player>> supplier;
+    /**
+     * The cached audience or {@code null} if the supplier should be called on every execution
+     */
+    private final CachedAudience audience;
     
     /**
      * Creates a new {@link SuppliedTask}.
@@ -54,18 +63,33 @@ public final class SuppliedTask extends ParticleTask {
      * @param supplier  The {@link Supplier} used to retrieve the {@link Collection} of target {@link Player Players}
      */
     public SuppliedTask(List<Object> packets, int tickDelay, Supplier<Collection<Player>> supplier) {
+        this(packets, tickDelay, supplier, 0);
+    }
+    
+    /**
+     * Creates a new {@link SuppliedTask} with incremental audience tracking.
+     *
+     * @param packets              {@link List} of packets
+     * @param tickDelay            The delay of ticks between each execution
+     * @param supplier             The {@link Supplier} used to retrieve the {@link Collection} of target {@link Player Players}
+     * @param reevaluationInterval The amount of ticks after which the supplier is called again even
+     *                             if no player joined, quit or changed the world. A value of {@code 0}
+     *                             or less calls the supplier on every execution.
+     */
+    public SuppliedTask(List<Object> packets, int tickDelay, Supplier<Collection<Player>> supplier, int reevaluationInterval) {
         super(packets, tickDelay);
         this.supplier = Objects.requireNonNull(supplier);
+        this.audience = reevaluationInterval > 0 ? new CachedAudience(reevaluationInterval, tickDelay) : null;
     }
     
     /**
      * Calls the {@link #supplier} to retrieve the
      * target {@link Player Players}
      *
-     * @return {@link Supplier#get()} with {@link #supplier}
+     * @return {@link Supplier#get()} with {@link #supplier} or the cached recipients
      */
     @Override
     public Collection<Player> getTargetPlayers() {
-        return supplier.get();
+        return audience == null ? supplier.get() : audience.get(supplier);
     }
 }
@@ -27,17 +27,40 @@ package xyz.xenondevs.particle.task;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import xyz.xenondevs.particle.metrics.ParticleEvents;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
 import xyz.xenondevs.particle.utils.ParticleUtils;
 import xyz.xenondevs.particle.utils.ReflectionUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A manager to handle different {@link ParticleTask ParticleTasks}
+ * <p>
+ * All tasks are multiplexed onto a single asynchronous Bukkit task that
+ * ticks a timing wheel. Each tick only the tasks in the current slot of
+ * the wheel are looked at, so the cost of a tick doesn't depend on the
+ * total amount of running tasks.
+ * <p>
+ * Tasks with the same period are spread evenly across the possible phase
+ * offsets of that period, so e.g. 500 tasks with a period of 20 ticks are
+ * executed 25 at a time instead of all on the same tick.
  *
  * @author ByteZ
  * @see ParticleTask
@@ -49,26 +72,109 @@ public final class TaskManager {
      */
     private final static TaskManager INSTANCE = new TaskManager();
     
+    /**
+     * The amount of slots in the {@link #wheel}. Has to be a power of two.
+     */
+    private static final int WHEEL_SIZE = 256;
+    /**
+     * The mask used to get the slot of a tick.
+     */
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    /**
+     * The amount of ticks recorded in the {@link #loadHistory}. Has to be a power of two.
+     */
+    private static final int HISTORY_SIZE = 256;
+    
+    /**
+     * The timing wheel. Each slot contains the tasks that are due on a tick
+     * matching the slot. Tasks with a delay bigger than the wheel stay in their
+     * slot until their tick is reached. Only accessed by the ticking thread.
+     */
+    @SuppressWarnings("unchecked")
+    private final List<ScheduledTask>[] wheel = new List[WHEEL_SIZE];
+    /**
+     * Tasks that were started since the last tick and still have to be added to the {@link #wheel}.
+     */
+    private final Queue<ScheduledTask> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * All running tasks by their id.
+     */
+    private final Map<Integer, ScheduledTask> tasks = new ConcurrentHashMap<>();
+    /**
+     * Tasks that were executed in the current tick and have to be rescheduled.
+     */
+    private final List<ScheduledTask> rescheduled = new ArrayList<>();
+    /**
+     * The id of the next task.
+     */
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    /**
+     * The amount of tasks using each phase offset, keyed by the period of the tasks.
+     */
+    private final Map<Integer, int[]> phaseLoads = new HashMap<>();
+    /**
+     * The amount of tasks executed in each of the last {@link #HISTORY_SIZE} ticks.
+     */
+    private final AtomicIntegerArray loadHistory = new AtomicIntegerArray(HISTORY_SIZE);
+    /**
+     * The lock held while ticking the {@link #wheel}.
+     */
+    private final Object tickLock = new Object();
+    /**
+     * The current tick of the {@link #wheel}.
+     */
+    private volatile long currentTick = 0;
+    /**
+     * The Bukkit task ticking the {@link #wheel} or {@code null} if no task is running.
+     */
+    private BukkitTask ticker;
+    
+    /**
+     * Whether the packets of a task should be sent as one batch per player.
+     *
+     * @see ParticleUtils#sendBatched(Collection, Collection)
+     */
+    private volatile boolean batchedSending = false;
+    
     /**
      * Private constructor because this is a singleton class.
      */
     private TaskManager() {
+        for (int i = 0; i < WHEEL_SIZE; ++i)
+            wheel[i] = new ArrayList<>();
     }
     
     /**
-     * Starts a new Timer for the given task.
+     * Starts a new Timer for the given task. The phase of the task is chosen
+     * automatically so that tasks with the same period are spread evenly
+     * across all ticks of that period.
      *
      * @param task the task that should be added to the scheduler
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see TaskManager#stopTask(int)
      */
     public int startTask(ParticleTask task) {
-        //noinspection CodeBlock2Expr
-        int taskId = Bukkit.getScheduler().runTaskTimerAsynchronously(ReflectionUtils.getPlugin(), () -> {
-            ParticleUtils.sendBulk(task.getPackets(), task.getTargetPlayers());
-        }, 0, task.getTickDelay()).getTaskId();
-        
-        return taskId;
+        return startTask(task, -1);
+    }
+    
+    /**
+     * Starts a new Timer for the given task. The task is executed on every tick
+     * {@code t} where {@code t % tickDelay == phase}. Tasks with the same period
+     * but different phases are therefore never executed on the same tick.
+     *
+     * @param task  the task that should be added to the scheduler
+     * @param phase the phase offset in ticks or {@code -1} to choose the least used phase.
+     *              Values bigger than the period of the task are wrapped around.
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @see TaskManager#stopTask(int)
+     */
+    public int startTask(ParticleTask task, int phase) {
+        int period = Math.max(1, task.getTickDelay());
+        ScheduledTask scheduled = new ScheduledTask(nextId.getAndIncrement(), task, period, acquirePhase(period, phase));
+        tasks.put(scheduled.id, scheduled);
+        pending.add(scheduled);
+        startTicker();
+        return scheduled.id;
     }
     
     /**
@@ -77,7 +183,225 @@ public final class TaskManager {
      * @param taskId the id of the task to be stopped.
      */
     public void stopTask(int taskId) {
-        Bukkit.getScheduler().cancelTask(taskId);
+        ScheduledTask scheduled = tasks.remove(taskId);
+        if (scheduled != null) {
+            scheduled.cancelled = true;
+            releasePhase(scheduled.period, scheduled.phase);
+        }
+    }
+    
+    /**
+     * Reserves a phase offset for a task with the given period.
+     *
+     * @param period the period of the task
+     * @param phase  the requested phase or {@code -1} to choose the least used phase.
+     * @return the phase of the task
+     */
+    private int acquirePhase(int period, int phase) {
+        synchronized (phaseLoads) {
+            int[] loads = phaseLoads.computeIfAbsent(period, k -> new int[k]);
+            if (phase < 0) {
+                phase = 0;
+                for (int i = 1; i < period; ++i)
+                    if (loads[i] < loads[phase])
+                        phase = i;
+            } else phase %= period;
+            ++loads[phase];
+            return phase;
+        }
+    }
+    
+    /**
+     * Releases a phase offset that was reserved using {@link #acquirePhase(int, int)}.
+     *
+     * @param period the period of the task
+     * @param phase  the phase of the task
+     */
+    private void releasePhase(int period, int phase) {
+        synchronized (phaseLoads) {
+            int[] loads = phaseLoads.get(period);
+            if (loads != null && --loads[phase] <= 0) {
+                loads[phase] = 0;
+                for (int load : loads)
+                    if (load > 0)
+                        return;
+                phaseLoads.remove(period);
+            }
+        }
+    }
+    
+    /**
+     * Gets the amount of tasks executed in each of the last 256 ticks, ordered
+     * from the oldest to the most recent tick. Can be used to check how evenly
+     * the load is spread across ticks.
+     *
+     * @return the amount of executed tasks per tick
+     */
+    public int[] getLoadHistogram() {
+        long tick = currentTick;
+        int[] histogram = new int[HISTORY_SIZE];
+        for (int i = 0; i < HISTORY_SIZE; ++i)
+            histogram[i] = loadHistory.get((int) ((tick + 1 + i) & (HISTORY_SIZE - 1)));
+        return histogram;
+    }
+    
+    /**
+     * Gets the highest amount of tasks executed in a single tick within the last 256 ticks.
+     *
+     * @return the peak amount of executed tasks per tick
+     */
+    public int getPeakLoad() {
+        int peak = 0;
+        for (int i = 0; i < HISTORY_SIZE; ++i)
+            peak = Math.max(peak, loadHistory.get(i));
+        return peak;
+    }
+    
+    /**
+     * Gets the amount of tasks that are currently running.
+     *
+     * @return the amount of running tasks
+     */
+    public int getRunningTasks() {
+        return tasks.size();
+    }
+    
+    /**
+     * Starts the Bukkit task ticking the {@link #wheel} if it isn't running yet.
+     */
+    private synchronized void startTicker() {
+        if (ticker == null)
+            ticker = Bukkit.getScheduler().runTaskTimerAsynchronously(ReflectionUtils.getPlugin(), this::tick, 1, 1);
+    }
+    
+    /**
+     * Stops the Bukkit task ticking the {@link #wheel} if no tasks are left.
+     */
+    private synchronized void stopTickerIfIdle() {
+        if (ticker != null && tasks.isEmpty() && pending.isEmpty()) {
+            ticker.cancel();
+            ticker = null;
+        }
+    }
+    
+    /**
+     * Advances the {@link #wheel} by one tick and executes all tasks that are due.
+     * Guarded by the {@link #tickLock} because Bukkit may start the next execution
+     * before the previous one finished.
+     */
+    private void tick() {
+        synchronized (tickLock) {
+            tickWheel();
+        }
+        if (tasks.isEmpty())
+            stopTickerIfIdle();
+    }
+    
+    /**
+     * Advances the {@link #wheel} by one tick. Has to be called while holding the {@link #tickLock}.
+     */
+    private void tickWheel() {
+        long tick = ++currentTick;
+        ScheduledTask added;
+        while ((added = pending.poll()) != null)
+            schedule(added, tick + Math.floorMod(added.phase - tick, (long) added.period));
+        
+        List<ScheduledTask> slot = wheel[(int) (tick & WHEEL_MASK)];
+        int size = slot.size();
+        int kept = 0;
+        int executed = 0;
+        for (int i = 0; i < size; ++i) {
+            ScheduledTask scheduled = slot.get(i);
+            if (scheduled.cancelled)
+                continue;
+            if (scheduled.nextTick != tick) {
+                slot.set(kept++, scheduled);
+                continue;
+            }
+            run(scheduled);
+            rescheduled.add(scheduled);
+            ++executed;
+        }
+        loadHistory.set((int) (tick & (HISTORY_SIZE - 1)), executed);
+        slot.subList(kept, size).clear();
+        for (ScheduledTask scheduled : rescheduled)
+            schedule(scheduled, scheduled.nextTick + scheduled.period);
+        rescheduled.clear();
+    }
+    
+    /**
+     * Adds a task to the slot of the given tick.
+     *
+     * @param scheduled the task that should be scheduled
+     * @param tick      the tick at which the task should be executed next
+     */
+    private void schedule(ScheduledTask scheduled, long tick) {
+        if (scheduled.cancelled)
+            return;
+        scheduled.nextTick = tick;
+        wheel[(int) (tick & WHEEL_MASK)].add(scheduled);
+    }
+    
+    /**
+     * Sends the packets of a task to its target players. Exceptions are
+     * caught so a broken task doesn't affect the other tasks. The first
+     * failure of each task is logged and every failure is counted in the
+     * {@link ParticleMetrics}.
+     *
+     * @param scheduled the task that should be executed
+     */
+    private void run(ScheduledTask scheduled) {
+        ParticleTask task = scheduled.task;
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        long start = metrics.startTimer();
+        Object event = ParticleEvents.beginTaskTick();
+        try {
+            int audience;
+            if (!batchedSending && task instanceof SingularTask) {
+                audience = ((SingularTask) task).sendPackets();
+            } else {
+                Collection<Player> players = task.getTargetPlayers();
+                if (batchedSending)
+                    ParticleUtils.sendBatched(task.getPackets(), players);
+                else
+                    ParticleUtils.sendBulk(task.getPackets(), players);
+                audience = players.size();
+            }
+            metrics.recordDisplay(audience, start);
+            ParticleEvents.commitTaskTick(event, scheduled.id, task.getClass(), audience);
+        } catch (Exception ex) {
+            metrics.recordTaskFailure();
+            if (!scheduled.failureLogged) {
+                scheduled.failureLogged = true;
+                Plugin plugin = ReflectionUtils.getPlugin();
+                Logger logger = plugin == null ? Logger.getLogger("ParticleLib") : plugin.getLogger();
+                logger.log(Level.WARNING, "Particle task " + scheduled.id + " (" + task.getClass().getName()
+                    + ") threw an exception. Further failures of this task won't be logged.", ex);
+            }
+        }
+    }
+    
+    /**
+     * Checks if the packets of tasks are sent as one batch per player.
+     *
+     * @return {@code true} if batched sending is enabled.
+     */
+    public boolean isBatchedSending() {
+        return batchedSending;
+    }
+    
+    /**
+     * Enables or disables batched sending. If enabled, all packets of a task execution
+     * are written to the netty Channel of each player and flushed once.
+     * <p>
+     * <b>Note:</b> Batched packets bypass NetworkManager#sendPacket, so hooks on the
+     * PlayerConnection or NetworkManager won't see them.
+     *
+     * @param batchedSending {@code true} if the packets of tasks should be sent in batches.
+     * @see ParticleUtils#sendBatched(Collection, Collection)
+     */
+    public void setBatchedSending(boolean batchedSending) {
+        this.batchedSending = batchedSending;
     }
     
     /**
@@ -94,7 +418,7 @@ public final class TaskManager {
      *
      * @param packets   {@link List} of packets
      * @param tickDelay The delay of ticks between each execution
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see GlobalTask
      * @see TaskManager#stopTask(int)
      */
@@ -108,7 +432,7 @@ public final class TaskManager {
      * @param packets   {@link List} of packets
      * @param tickDelay The delay of ticks between each execution
      * @param world     The target {@link World}
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see WorldTask
      * @see TaskManager#stopTask(int)
      */
@@ -122,7 +446,7 @@ public final class TaskManager {
      * @param packets   {@link List} of packets
      * @param tickDelay The delay of ticks between each execution
      * @param targets   A {@link Collection} of {@link Player Players} that will receive the particles.
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see TargetedTask
      * @see TaskManager#stopTask(int)
      */
@@ -136,7 +460,7 @@ public final class TaskManager {
      * @param packets   {@link List} of packets
      * @param tickDelay The delay of ticks between each execution
      * @param target    The {@link UUID} of the target {@link Player}
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see SingularTask
      * @see TaskManager#stopTask(int)
      */
@@ -150,7 +474,7 @@ public final class TaskManager {
      * @param packets   {@link List} of packets
      * @param tickDelay The delay of ticks between each execution
      * @param target    The target {@link Player}
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see SingularTask
      * @see TaskManager#stopTask(int)
      */
@@ -164,7 +488,7 @@ public final class TaskManager {
      * @param packets   {@link List} of packets
      * @param tickDelay The delay of ticks between each execution
      * @param filter    The {@link Predicate} to filter the {@link Player Players}
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see FilteredTask
      * @see TaskManager#stopTask(int)
      */
@@ -172,13 +496,28 @@ public final class TaskManager {
         return getTaskManager().startTask(new FilteredTask(packets, tickDelay, filter));
     }
     
+    /**
+     * Starts a new {@link FilteredTask} with incremental audience tracking.
+     *
+     * @param packets              {@link List} of packets
+     * @param tickDelay            The delay of ticks between each execution
+     * @param filter               The {@link Predicate} to filter the {@link Player Players}
+     * @param reevaluationInterval The amount of ticks after which the filter is applied again
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @see FilteredTask
+     * @see TaskManager#stopTask(int)
+     */
+    public static int startFilteredTask(List<Object> packets, int tickDelay, Predicate<Player> filter, int reevaluationInterval) {
+        return getTaskManager().startTask(new FilteredTask(packets, tickDelay, filter, reevaluationInterval));
+    }
+    
     /**
      * Starts a new {@link SuppliedTask}.
      *
      * @param packets   {@link List} of packets
      * @param tickDelay The delay of ticks between each execution
      * @param supplier  The {@link Supplier} used to retrieve the {@link Collection} of target {@link Player Players}
-     * @return the id of the BukkitTask which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
      * @see SuppliedTask
      * @see TaskManager#stopTask(int)
      */
@@ -186,4 +525,69 @@ public final class TaskManager {
         return getTaskManager().startTask(new SuppliedTask(packets, tickDelay, supplier));
     }
     
+    /**
+     * Starts a new {@link SuppliedTask} with incremental audience tracking.
+     *
+     * @param packets              {@link List} of packets
+     * @param tickDelay            The delay of ticks between each execution
+     * @param supplier             The {@link Supplier} used to retrieve the {@link Collection} of target {@link Player Players}
+     * @param reevaluationInterval The amount of ticks after which the supplier is called again
+     * @return the id of the task which can be cancelled using {@link TaskManager#stopTask(int)}
+     * @see SuppliedTask
+     * @see TaskManager#stopTask(int)
+     */
+    public static int startSuppliedTask(List<Object> packets, int tickDelay, Supplier<Collection<Player>> supplier, int reevaluationInterval) {
+        return getTaskManager().startTask(new SuppliedTask(packets, tickDelay, supplier, reevaluationInterval));
+    }
+    
+    /**
+     * A {@link ParticleTask} that has been added to the timing wheel.
+     */
+    private static final class ScheduledTask {
+        
+        /**
+         * The id of the task.
+         */
+        private final int id;
+        /**
+         * The {@link ParticleTask} that should be executed.
+         */
+        private final ParticleTask task;
+        /**
+         * The amount of ticks between each execution.
+         */
+        private final int period;
+        /**
+         * The phase offset of the task.
+         */
+        private final int phase;
+        /**
+         * The tick at which the task should be executed next.
+         */
+        private long nextTick;
+        /**
+         * Whether the task has been stopped.
+         */
+        private volatile boolean cancelled;
+        /**
+         * Whether a failure of the task has already been logged.
+         */
+        private boolean failureLogged;
+        
+        /**
+         * Creates a new {@link ScheduledTask}.
+         *
+         * @param id     the id of the task
+         * @param task   the {@link ParticleTask} that should be executed
+         * @param period the amount of ticks between each execution
+         * @param phase  the phase offset of the task
+         */
+        private ScheduledTask(int id, ParticleTask task, int period, int phase) {
+            this.id = id;
+            this.task = task;
+            this.period = period;
+            this.phase = phase;
+        }
+    }
+    
 }
@@ -26,6 +26,7 @@ package xyz.xenondevs.particle.task;
 
 import org.bukkit.World;
 import org.bukkit.entity.Player;
+import xyz.xenondevs.particle.utils.RecipientRegistry;
 
 import java.util.Collection;
 import java.util.List;
@@ -59,12 +60,13 @@ public final class WorldTask extends ParticleTask {
     }
     
     /**
-     * Gets all players in the {@link #world}.
+     * Gets all players in the {@link #world} from the
+     * snapshot of the {@link RecipientRegistry}.
      *
      * @return all players in the specified {@link #world}.
      */
     @Override
     public Collection<Player> getTargetPlayers() {
-        return world.getPlayers();
+        return RecipientRegistry.getRegistry().getPlayerList(world);
     }
 }
@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.utils;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A size bounded cache that can safely be used from async tasks. Entries
+ * are evicted using the CLOCK (second chance) algorithm: every entry gets
+ * a reference bit on access, and entries whose bit is set survive one more
+ * round of eviction.
+ * <p>
+ * Concurrent loads of the same key are resolved so that only one value is
+ * kept and returned to all callers, which makes the cache usable to intern
+ * immutable objects.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ * @author ByteZ
+ */
+public final class BoundedCache<K, V> {
+    
+    /**
+     * The maximum amount of entries.
+     */
+    private final int capacity;
+    /**
+     * The cached entries.
+     */
+    private final Map<K, Entry<V>> entries;
+    /**
+     * The keys of the cached entries in insertion order, used as the clock.
+     */
+    private final Queue<K> clock = new ConcurrentLinkedQueue<>();
+    /**
+     * Whether a thread is currently evicting entries.
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    /**
+     * The amount of lookups that found a cached value.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * The amount of lookups that had to load the value.
+     */
+    private final LongAdder misses = new LongAdder();
+    /**
+     * The amount of evicted entries.
+     */
+    private final LongAdder evictions = new LongAdder();
+    
+    /**
+     * Creates a new {@link BoundedCache}.
+     *
+     * @param capacity the maximum amount of entries
+     */
+    public BoundedCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.entries = new ConcurrentHashMap<>(Math.min(capacity, 1024));
+    }
+    
+    /**
+     * Gets the cached value of the given key or loads it using the given loader.
+     * {@code null} values are returned but not cached.
+     *
+     * @param key    the key of the value
+     * @param loader the {@link Function} used to load the value on a cache miss
+     * @return the cached or loaded value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            entry.mark();
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value == null)
+            return null;
+        Entry<V> previous = entries.putIfAbsent(key, new Entry<>(value));
+        if (previous != null)
+            return previous.value;
+        clock.add(key);
+        if (entries.size() > capacity)
+            evict();
+        return value;
+    }
+    
+    /**
+     * Gets the cached value of the given key without loading it.
+     *
+     * @param key the key of the value
+     * @return the cached value or {@code null} if the key isn't cached
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null)
+            return null;
+        entry.mark();
+        return entry.value;
+    }
+    
+    /**
+     * Evicts entries until the size of the cache is within its capacity.
+     * Only one thread evicts at a time, other threads skip the eviction.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true))
+            return;
+        try {
+            boolean reseeded = false;
+            while (entries.size() > capacity) {
+                K key = clock.poll();
+                if (key == null) {
+                    // Entries added during clear() might be missing in the clock
+                    if (reseeded)
+                        break;
+                    clock.addAll(entries.keySet());
+                    reseeded = true;
+                    continue;
+                }
+                Entry<V> entry = entries.get(key);
+                if (entry == null)
+                    continue;
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    clock.add(key);
+                } else if (entries.remove(key, entry))
+                    evictions.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    /**
+     * Removes all entries from the cache. The counters aren't reset.
+     */
+    public void clear() {
+        entries.clear();
+        clock.clear();
+    }
+    
+    /**
+     * Gets the current amount of cached entries.
+     *
+     * @return the amount of cached entries
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Gets the maximum amount of entries.
+     *
+     * @return the capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Gets the amount of lookups that found a cached value.
+     *
+     * @return the amount of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Gets the amount of lookups that had to load the value.
+     *
+     * @return the amount of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Gets the amount of entries that were evicted because the cache was full.
+     *
+     * @return the amount of evicted entries
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    /**
+     * A cached value with its reference bit.
+     *
+     * @param <V> the type of the value
+     */
+    private static final class Entry<V> {
+        
+        /**
+         * The cached value.
+         */
+        private final V value;
+        /**
+         * Whether the entry was accessed since the clock last passed it.
+         */
+        private volatile boolean referenced;
+        
+        /**
+         * Creates a new {@link Entry}.
+         *
+         * @param value the cached value
+         */
+        private Entry(V value) {
+            this.value = value;
+        }
+        
+        /**
+         * Marks the entry as referenced. The flag is only written if it isn't set yet, so
+         * concurrent hits on a hot entry don't keep invalidating its cache line.
+         */
+        private void mark() {
+            if (!referenced)
+                referenced = true;
+        }
+    }
+    
+}
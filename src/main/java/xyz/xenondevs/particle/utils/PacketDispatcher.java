@@ -0,0 +1,335 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An opt-in dispatcher that coalesces packets per player. Packets are queued
+ * while the tick runs and are sent in one batch per player once per tick. Each
+ * player gets one write and one flush per tick, no matter how many display
+ * calls happened in between.
+ * <p>
+ * Queuing is lock-free and can be done from any thread. The queues are drained
+ * by a synchronous task. Bukkit runs scheduled tasks at the start of a tick, so
+ * packets queued during a tick are sent at the start of the next tick.
+ * <p>
+ * <b>Note:</b> The batches are written to the netty Channels directly and bypass
+ * NetworkManager#sendPacket, see {@link ReflectionUtils#writePackets(Object, Object[])}.
+ *
+ * @author ByteZ
+ * @see ParticleUtils#sendPacket(Object, java.util.Collection)
+ */
+public final class PacketDispatcher implements Listener {
+    
+    /**
+     * Singleton instance of the {@link PacketDispatcher}
+     */
+    private static final PacketDispatcher INSTANCE = new PacketDispatcher();
+    
+    /**
+     * The queues of all players that received packets since they joined.
+     */
+    private final Map<UUID, PlayerQueue> queues = new ConcurrentHashMap<>();
+    /**
+     * The total amount of packets that are currently queued.
+     */
+    private final AtomicInteger queuedPackets = new AtomicInteger();
+    /**
+     * The total amount of packets that have been dispatched.
+     */
+    private final AtomicLong dispatchedPackets = new AtomicLong();
+    /**
+     * The highest queue depth of a single player during the last drain.
+     */
+    private volatile int lastMaxQueueDepth;
+    /**
+     * The amount of packets sent during the last drain.
+     */
+    private volatile int lastDrainSize;
+    /**
+     * The task draining the queues or {@code null} if the dispatcher is disabled.
+     */
+    private volatile BukkitTask task;
+    
+    /**
+     * Private constructor because this is a singleton class.
+     */
+    private PacketDispatcher() {
+    }
+    
+    /**
+     * Get the singleton instance of the {@link PacketDispatcher}
+     *
+     * @return the singleton instance of the {@link PacketDispatcher}
+     */
+    public static PacketDispatcher getDispatcher() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Checks if the dispatcher is currently coalescing packets.
+     *
+     * @return {@code true} if the dispatcher is enabled.
+     */
+    public boolean isEnabled() {
+        return task != null;
+    }
+    
+    /**
+     * Enables the dispatcher. From now on, packets sent via
+     * {@link ParticleUtils#sendPacket(Object, java.util.Collection)} are queued and
+     * sent once per tick. Has to be called on the main thread.
+     */
+    public synchronized void enable() {
+        if (task != null)
+            return;
+        Bukkit.getServer().getPluginManager().registerEvents(this, ReflectionUtils.getPlugin());
+        task = Bukkit.getScheduler().runTaskTimer(ReflectionUtils.getPlugin(), this::drain, 1, 1);
+    }
+    
+    /**
+     * Disables the dispatcher and sends all packets that are still queued.
+     * Has to be called on the main thread.
+     */
+    public synchronized void disable() {
+        if (task == null)
+            return;
+        task.cancel();
+        task = null;
+        HandlerList.unregisterAll(this);
+        drain();
+    }
+    
+    /**
+     * Queues a packet for the given {@link Player}. The packet
+     * is sent with the next drain. Packets for players that aren't
+     * online anymore are dropped.
+     *
+     * @param player the {@link Player} that should receive the packet
+     * @param packet the packet that should be sent
+     * @return {@code false} if the dispatcher is disabled and the packet has to be sent directly.
+     */
+    public boolean queue(Player player, Object packet) {
+        if (task == null)
+            return false;
+        if (packet == null || !player.isOnline())
+            return true;
+        PlayerQueue queue = queues.get(player.getUniqueId());
+        if (queue == null || queue.player != player)
+            queue = createQueue(player);
+        queue.packets.offer(packet);
+        queue.depth.incrementAndGet();
+        queuedPackets.incrementAndGet();
+        if (task == null) // Disabled while queuing, the final drain might have missed the packet
+            drain(queue);
+        return true;
+    }
+    
+    /**
+     * Creates the queue of the given {@link Player} or replaces a queue that
+     * still holds an old {@link Player} instance of the same player. The packets
+     * of a replaced queue are dropped.
+     *
+     * @param player the {@link Player} whose queue should be created
+     * @return the current {@link PlayerQueue} of the {@link Player}
+     */
+    private PlayerQueue createQueue(Player player) {
+        UUID uuid = player.getUniqueId();
+        while (true) {
+            PlayerQueue current = queues.get(uuid);
+            if (current != null && current.player == player)
+                return current;
+            PlayerQueue created = new PlayerQueue(player);
+            if (current == null) {
+                if (queues.putIfAbsent(uuid, created) == null)
+                    return created;
+            } else if (queues.replace(uuid, current, created)) {
+                queuedPackets.addAndGet(-current.depth.get());
+                return created;
+            }
+        }
+    }
+    
+    /**
+     * Sends all queued packets. Each player receives their packets
+     * as one batch that is flushed once. Queues of players that
+     * aren't online anymore are removed.
+     *
+     * @see ReflectionUtils#writePackets(Object, Object[])
+     */
+    public void drain() {
+        int maxDepth = 0;
+        int drained = 0;
+        for (Map.Entry<UUID, PlayerQueue> entry : queues.entrySet()) {
+            PlayerQueue queue = entry.getValue();
+            if (!queue.player.isOnline()) {
+                if (queues.remove(entry.getKey(), queue))
+                    queuedPackets.addAndGet(-queue.depth.get());
+                continue;
+            }
+            int size = drain(queue);
+            maxDepth = Math.max(maxDepth, size);
+            drained += size;
+        }
+        lastMaxQueueDepth = maxDepth;
+        lastDrainSize = drained;
+    }
+    
+    /**
+     * Sends all packets of a single queue as one batch. Only one thread can drain a
+     * queue at a time, so a packet that is drained by the thread that queued it
+     * (after the dispatcher has been disabled) can't race the final drain of
+     * {@link #disable()}.
+     *
+     * @param queue the {@link PlayerQueue} that should be drained
+     * @return the amount of sent packets
+     */
+    private int drain(PlayerQueue queue) {
+        synchronized (queue) {
+            int depth = queue.depth.get();
+            if (depth == 0)
+                return 0;
+            Object[] packets = new Object[depth];
+            int size = 0;
+            Object packet;
+            while (size < depth && (packet = queue.packets.poll()) != null)
+                packets[size++] = packet;
+            queue.depth.addAndGet(-size);
+            queuedPackets.addAndGet(-size);
+            if (size != depth)
+                packets = Arrays.copyOf(packets, size);
+            if (!ReflectionUtils.writePackets(ReflectionUtils.getPlayerChannel(queue.player), packets))
+                for (Object p : packets)
+                    ReflectionUtils.sendPacket(queue.player, p);
+            dispatchedPackets.addAndGet(size);
+            return size;
+        }
+    }
+    
+    /**
+     * Gets the amount of packets that are currently queued.
+     *
+     * @return the amount of queued packets
+     */
+    public int getQueuedPackets() {
+        return queuedPackets.get();
+    }
+    
+    /**
+     * Gets the amount of packets that are currently queued for the given {@link Player}.
+     *
+     * @param player the target {@link Player}
+     * @return the queue depth of the {@link Player}
+     */
+    public int getQueueDepth(Player player) {
+        PlayerQueue queue = queues.get(player.getUniqueId());
+        return queue == null ? 0 : queue.depth.get();
+    }
+    
+    /**
+     * Gets the highest queue depth of a single player during the last drain.
+     *
+     * @return the highest queue depth of the last drain
+     */
+    public int getLastMaxQueueDepth() {
+        return lastMaxQueueDepth;
+    }
+    
+    /**
+     * Gets the amount of packets sent during the last drain.
+     *
+     * @return the amount of packets sent in the last drain
+     */
+    public int getLastDrainSize() {
+        return lastDrainSize;
+    }
+    
+    /**
+     * Gets the total amount of packets sent by the dispatcher.
+     *
+     * @return the total amount of dispatched packets
+     */
+    public long getDispatchedPackets() {
+        return dispatchedPackets.get();
+    }
+    
+    /**
+     * Removes the queue of a leaving player.
+     *
+     * @param event The {@link PlayerQuitEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerQuit(PlayerQuitEvent event) {
+        PlayerQueue queue = queues.remove(event.getPlayer().getUniqueId());
+        if (queue != null)
+            queuedPackets.addAndGet(-queue.depth.get());
+    }
+    
+    /**
+     * The packet queue of a single player.
+     */
+    private static final class PlayerQueue {
+        
+        /**
+         * The {@link Player} the packets are sent to.
+         */
+        private final Player player;
+        /**
+         * The lock-free queue holding the packets.
+         */
+        private final Queue<Object> packets = new ConcurrentLinkedQueue<>();
+        /**
+         * The amount of packets in the queue.
+         */
+        private final AtomicInteger depth = new AtomicInteger();
+        
+        /**
+         * Creates a new {@link PlayerQueue}.
+         *
+         * @param player the {@link Player} the packets are sent to
+         */
+        private PlayerQueue(Player player) {
+            this.player = player;
+        }
+    }
+    
+}
@@ -28,9 +28,17 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import xyz.xenondevs.particle.ParticleBuilder;
 import xyz.xenondevs.particle.ParticleConstants;
+import xyz.xenondevs.particle.ParticleEffect;
+import xyz.xenondevs.particle.metrics.ParticleEvents;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +51,218 @@ import java.util.stream.Collectors;
  */
 public final class ParticleUtils {
     
+    /**
+     * Whether packets sent to multiple players should be encoded once and
+     * written directly to the netty Channels of the players.
+     *
+     * @see #setPreEncoding(boolean)
+     */
+    private static volatile boolean preEncoding = false;
+    
+    /**
+     * Checks if packets sent to multiple players are pre-encoded.
+     *
+     * @return {@code true} if pre-encoding is enabled.
+     * @see #setPreEncoding(boolean)
+     */
+    public static boolean isPreEncoding() {
+        return preEncoding;
+    }
+    
+    /**
+     * Enables or disables pre-encoding. If enabled, a packet that is sent to multiple
+     * players via {@link #sendPacket(Object, Collection)} is only encoded once per kind
+     * of encoder, on the event loop of one of the Channels. The encoded buffer is then
+     * shared between the netty Channels of all players with that kind of encoder. Framing,
+     * compression and encryption are still applied by each Channel.
+     * <p>
+     * <b>Note:</b> Pre-encoded packets bypass the PlayerConnection, so plugins
+     * listening to outgoing packet objects won't see them. They are also written
+     * asynchronously and can arrive after packets that are sent to the same players
+     * later in the tick, see {@link ReflectionUtils#writeEncodedPackets(Object[], Object, java.util.function.IntConsumer)}.
+     *
+     * @param preEncoding {@code true} if packets should be pre-encoded.
+     */
+    public static void setPreEncoding(boolean preEncoding) {
+        ParticleUtils.preEncoding = preEncoding;
+    }
+    
+    /**
+     * Sends a packet to all given players. If the {@link PacketDispatcher} is enabled,
+     * the packet is queued until the next drain. Otherwise, if
+     * {@link #isPreEncoding() pre-encoding} is enabled, the packet is only encoded once
+     * per kind of encoder.
+     *
+     * @param packet  the packet that should be sent
+     * @param players the target {@link Player Players} that should receive the packet
+     */
+    public static void sendPacket(Object packet, Collection<? extends Player> players) {
+        sendPacket(null, packet, null, players, players.size(), null);
+    }
+    
+    /**
+     * Sends a packet to all given players that match the filter.
+     *
+     * @param packet  the packet that should be sent
+     * @param players the {@link Player Players} that should be filtered
+     * @param filter  a {@link Predicate} to filter out specific {@link Player Players} or {@code null}
+     * @see #sendPacket(Object, Collection)
+     */
+    public static void sendPacket(Object packet, Collection<? extends Player> players, Predicate<? super Player> filter) {
+        sendPacket(null, packet, null, players, players.size(), filter);
+    }
+    
+    /**
+     * Sends a packet of the given {@link ParticleEffect} to all given players that match
+     * the filter. The time spent sending the packet is attributed to the effect in the
+     * {@link ParticleMetrics}.
+     *
+     * @param effect  the {@link ParticleEffect} of the packet or {@code null} if it isn't known
+     * @param packet  the packet that should be sent
+     * @param players the {@link Player Players} that should be filtered
+     * @param filter  a {@link Predicate} to filter out specific {@link Player Players} or {@code null}
+     * @see #sendPacket(Object, Collection)
+     */
+    public static void sendPacket(ParticleEffect effect, Object packet, Collection<? extends Player> players, Predicate<? super Player> filter) {
+        sendPacket(effect, packet, null, players, players.size(), filter);
+    }
+    
+    /**
+     * Sends a packet to all players in the array that match the filter. Mainly used
+     * with the snapshots of the {@link RecipientRegistry}.
+     *
+     * @param packet  the packet that should be sent
+     * @param players the {@link Player Players} that should be filtered
+     * @param filter  a {@link Predicate} to filter out specific {@link Player Players} or {@code null}
+     * @see #sendPacket(Object, Collection)
+     */
+    public static void sendPacket(Object packet, Player[] players, Predicate<? super Player> filter) {
+        sendPacket(null, packet, players, null, players.length, filter);
+    }
+    
+    /**
+     * Sends a packet of the given {@link ParticleEffect} to all players in the array that
+     * match the filter. The time spent sending the packet is attributed to the effect in
+     * the {@link ParticleMetrics}.
+     *
+     * @param effect  the {@link ParticleEffect} of the packet or {@code null} if it isn't known
+     * @param packet  the packet that should be sent
+     * @param players the {@link Player Players} that should be filtered
+     * @param filter  a {@link Predicate} to filter out specific {@link Player Players} or {@code null}
+     * @see #sendPacket(Object, Player[], Predicate)
+     */
+    public static void sendPacket(ParticleEffect effect, Object packet, Player[] players, Predicate<? super Player> filter) {
+        sendPacket(effect, packet, players, null, players.length, filter);
+    }
+    
+    /**
+     * Sends a packet to all given players that match the filter. The players are either
+     * given as an array or as an {@link Iterable}, so arrays (e.g. the snapshots of the
+     * {@link RecipientRegistry}) can be iterated without allocating.
+     *
+     * @param effect  the {@link ParticleEffect} of the packet or {@code null} if it isn't known
+     * @param packet  the packet that should be sent
+     * @param array   the {@link Player Players} that should be filtered or {@code null} if {@code players} is used
+     * @param players the {@link Player Players} that should be filtered if {@code array} is {@code null}
+     * @param size    the amount of players
+     * @param filter  a {@link Predicate} to filter out specific {@link Player Players} or {@code null}
+     */
+    private static void sendPacket(ParticleEffect effect, Object packet, Player[] array, Iterable<? extends Player> players, int size, Predicate<? super Player> filter) {
+        if (packet == null)
+            return;
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        long start = metrics.startTimer();
+        Object event = ParticleEvents.beginSend();
+        int recipients = 0;
+        PacketDispatcher dispatcher = PacketDispatcher.getDispatcher();
+        boolean queued = dispatcher.isEnabled();
+        if (!queued && preEncoding && size > 1) {
+            recipients = sendEncoded(packet, array == null ? players : Arrays.asList(array), filter);
+        } else if (array != null) {
+            for (Player player : array) {
+                if (filter == null || filter.test(player)) {
+                    send(dispatcher, queued, player, packet);
+                    ++recipients;
+                }
+            }
+        } else {
+            for (Player player : players) {
+                if (filter == null || filter.test(player)) {
+                    send(dispatcher, queued, player, packet);
+                    ++recipients;
+                }
+            }
+        }
+        metrics.recordDisplay(effect, recipients, start);
+        ParticleEvents.commitSend(event, recipients, 1);
+    }
+    
+    /**
+     * Queues a packet in the {@link PacketDispatcher} or sends it directly if the
+     * dispatcher isn't (or no longer) enabled.
+     *
+     * @param dispatcher the {@link PacketDispatcher}
+     * @param queued     whether the dispatcher was enabled when the display started
+     * @param player     the {@link Player} that should receive the packet
+     * @param packet     the packet that should be sent
+     */
+    private static void send(PacketDispatcher dispatcher, boolean queued, Player player, Object packet) {
+        if (!queued || !dispatcher.queue(player, packet))
+            ReflectionUtils.sendPacket(player, packet);
+    }
+    
+    /**
+     * Encodes the given packet once per kind of encoder and writes the encoded buffer
+     * to the netty Channel of each player. Players whose Channel can't be reached receive
+     * the packet via their PlayerConnection instead.
+     *
+     * @param packet  the packet that should be sent
+     * @param players the target {@link Player Players} that should receive the packet
+     */
+    public static void sendEncoded(Object packet, Collection<? extends Player> players) {
+        sendEncoded(packet, players, null);
+    }
+    
+    /**
+     * Encodes the given packet once per kind of encoder and writes the encoded buffer
+     * to the netty Channel of each player that matches the filter. Players are grouped
+     * by the class of the encoder in their pipeline, so Channels with a replaced encoder
+     * (e.g. by protocol translation plugins) never receive bytes of another encoder.
+     * The packets are encoded on the event loop of a Channel of each group, so they
+     * (and the fallback sends of players whose Channel couldn't be written to) aren't
+     * ordered with packets the calling thread sends afterwards.
+     *
+     * @param packet  the packet that should be sent
+     * @param players the {@link Player Players} that should be filtered
+     * @param filter  a {@link Predicate} to filter out specific {@link Player Players} or {@code null}
+     * @return the amount of {@link Player Players} that matched the filter
+     */
+    private static int sendEncoded(Object packet, Iterable<? extends Player> players, Predicate<? super Player> filter) {
+        Map<Class<?>, EncoderGroup> groups = new HashMap<>(4);
+        int recipients = 0;
+        for (Player player : players) {
+            if (filter != null && !filter.test(player))
+                continue;
+            ++recipients;
+            Object channel = ReflectionUtils.getPlayerChannel(player);
+            Object encoder = ReflectionUtils.getPacketEncoder(channel);
+            if (encoder == null) {
+                ReflectionUtils.sendPacket(player, packet);
+                continue;
+            }
+            EncoderGroup group = groups.computeIfAbsent(encoder.getClass(), clazz -> new EncoderGroup());
+            group.players.add(player);
+            group.channels.add(channel);
+        }
+        for (EncoderGroup group : groups.values()) {
+            List<Player> members = group.players;
+            if (!ReflectionUtils.writeEncodedPackets(group.channels.toArray(), packet, i -> ReflectionUtils.sendPacket(members.get(i), packet)))
+                for (Player player : members)
+                    ReflectionUtils.sendPacket(player, packet);
+        }
+        return recipients;
+    }
+    
     /**
      * Sends the given {@link Collection} of packets to the target player
      * while caching the PlayerConnection in a local variable instead of
@@ -53,12 +273,153 @@ public final class ParticleUtils {
      */
     public static void sendBulk(Collection<Object> packets, Player player) {
         Object connection = ReflectionUtils.PLAYER_CONNECTION_CACHE.getConnection(player);
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        int sent = 0;
         for (Object packet : packets) {
             try {
                 ParticleConstants.PLAYER_CONNECTION_SEND_PACKET_METHOD.invoke(connection, packet);
+                ++sent;
             } catch (Exception ignored) {// Ignored in case non packet objects are in the packets Iterable
+                metrics.recordSendFailure();
             }
         }
+        metrics.recordSent(sent);
+    }
+    
+    /**
+     * Sends the given {@link Collection} of packets to the target player as one batch.
+     * All packets are written to the netty Channel of the player in a single event loop
+     * task and flushed once, instead of flushing after every packet. If the Channel can't
+     * be reached, {@link #sendBulk(Collection, Player)} is used instead.
+     * <p>
+     * <b>Note:</b> The packets are written to the Channel directly and bypass
+     * NetworkManager#sendPacket, so hooks on the PlayerConnection or NetworkManager
+     * won't see them. Handlers in the netty pipeline still do.
+     *
+     * @param packets the packets that should be sent to the player
+     * @param player  the target {@link Player} that should receive the packets
+     */
+    public static void sendBatched(Collection<Object> packets, Player player) {
+        sendBatched(packets.toArray(), packets, player);
+    }
+    
+    /**
+     * Sends the given {@link Collection} of packets to the target players as one batch
+     * per player.
+     *
+     * @param packets the packets that should be sent to the players
+     * @param players the target {@link Player Players} that should receive the packets
+     * @see #sendBatched(Collection, Player)
+     */
+    public static void sendBatched(Collection<Object> packets, Collection<Player> players) {
+        Object[] array = packets.toArray();
+        for (Player player : players) {
+            sendBatched(array, packets, player);
+        }
+    }
+    
+    /**
+     * Sends the given array of packets to the target player as one batch.
+     *
+     * @param array   the packets that should be sent to the player
+     * @param packets the packets as a {@link Collection} for the fallback
+     * @param player  the target {@link Player} that should receive the packets
+     */
+    private static void sendBatched(Object[] array, Collection<Object> packets, Player player) {
+        if (!ReflectionUtils.writePackets(ReflectionUtils.getPlayerChannel(player), array))
+            sendBulk(packets, player);
+    }
+    
+    /**
+     * Sends the given array of packets to the target players as one batch per player.
+     * The packets are written to the netty Channel of each player and flushed once.
+     * <p>
+     * <b>Note:</b> The packets are written to the Channel directly and bypass
+     * NetworkManager#sendPacket, so hooks on the PlayerConnection or NetworkManager
+     * won't see them. Handlers in the netty pipeline still do.
+     *
+     * @param packets the packets that should be sent to the players
+     * @param players the target {@link Player Players} that should receive the packets
+     */
+    public static void sendBatched(Object[] packets, Collection<? extends Player> players) {
+        sendBatched(null, packets, players);
+    }
+    
+    /**
+     * Sends the given array of packets of the given {@link ParticleEffect} to the target
+     * players as one batch per player. The time spent sending the packets is attributed
+     * to the effect in the {@link ParticleMetrics}.
+     *
+     * @param effect  the {@link ParticleEffect} of the packets or {@code null} if it isn't known
+     * @param packets the packets that should be sent to the players
+     * @param players the target {@link Player Players} that should receive the packets
+     * @see #sendBatched(Object[], Collection)
+     */
+    public static void sendBatched(ParticleEffect effect, Object[] packets, Collection<? extends Player> players) {
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        long start = metrics.startTimer();
+        Object event = ParticleEvents.beginSend();
+        for (Player player : players) {
+            sendBatched(packets, player);
+        }
+        metrics.recordDisplay(effect, players.size(), start);
+        ParticleEvents.commitSend(event, players.size(), packets.length);
+    }
+    
+    /**
+     * Sends the given array of packets to the target players as one batch per player.
+     *
+     * @param packets the packets that should be sent to the players
+     * @param players the target {@link Player Players} that should receive the packets
+     * @see #sendBatched(Object[], Collection)
+     */
+    public static void sendBatched(Object[] packets, Player[] players) {
+        sendBatched(null, packets, players);
+    }
+    
+    /**
+     * Sends the given array of packets of the given {@link ParticleEffect} to the target
+     * players as one batch per player. The time spent sending the packets is attributed
+     * to the effect in the {@link ParticleMetrics}.
+     *
+     * @param effect  the {@link ParticleEffect} of the packets or {@code null} if it isn't known
+     * @param packets the packets that should be sent to the players
+     * @param players the target {@link Player Players} that should receive the packets
+     * @see #sendBatched(Object[], Collection)
+     */
+    public static void sendBatched(ParticleEffect effect, Object[] packets, Player[] players) {
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        long start = metrics.startTimer();
+        Object event = ParticleEvents.beginSend();
+        for (Player player : players) {
+            sendBatched(packets, player);
+        }
+        metrics.recordDisplay(effect, players.length, start);
+        ParticleEvents.commitSend(event, players.length, packets.length);
+    }
+    
+    /**
+     * Sends the given array of packets to the target player as one batch. If the Channel
+     * of the player can't be reached, the packets are sent one by one instead.
+     *
+     * @param packets the packets that should be sent to the player
+     * @param player  the target {@link Player} that should receive the packets
+     */
+    private static void sendBatched(Object[] packets, Player player) {
+        if (packets.length == 0 || ReflectionUtils.writePackets(ReflectionUtils.getPlayerChannel(player), packets))
+            return;
+        Object connection = ReflectionUtils.PLAYER_CONNECTION_CACHE.getConnection(player);
+        ParticleMetrics metrics = ParticleMetrics.getMetrics();
+        int sent = 0;
+        for (Object packet : packets) {
+            try {
+                ParticleConstants.PLAYER_CONNECTION_SEND_PACKET_METHOD.invoke(connection, packet);
+                ++sent;
+            } catch (Exception ignored) {// Ignored in case non packet objects are in the array
+                metrics.recordSendFailure();
+            }
+        }
+        metrics.recordSent(sent);
     }
     
     /**
@@ -128,4 +489,20 @@ public final class ParticleUtils {
             sendBulk(packets, player);
         }
     }
+    
+    /**
+     * The players whose Channels use the same kind of encoder.
+     */
+    private static final class EncoderGroup {
+        
+        /**
+         * The players of the group.
+         */
+        private final List<Player> players = new ArrayList<>();
+        /**
+         * The Channels of the {@link #players} in the same order.
+         */
+        private final List<Object> channels = new ArrayList<>();
+    }
+    
 }
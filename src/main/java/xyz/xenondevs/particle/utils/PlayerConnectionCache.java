@@ -28,23 +28,30 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerKickEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A cache for player connections to avoid calling reflective
  * methods for each packet.
+ * <p>
+ * The cache is keyed by the {@link UUID} of the player and can safely be
+ * used from async tasks. Entries only hold weak references, so a missed
+ * quit event can't keep a {@link Player} in memory.
  *
  * @author ByteZ
  */
 public final class PlayerConnectionCache implements Listener {
     
     /**
-     * A {@link HashMap} containing a cache of player connections
+     * A {@link ConcurrentHashMap} containing a cache of player connections
      */
-    private final Map<Player, Object> cache = new HashMap<>();
+    private final Map<UUID, CachedConnection> cache = new ConcurrentHashMap<>();
     
     /**
      * Creates a new {@link PlayerConnectionCache} and registers itself
@@ -73,13 +80,53 @@ public final class PlayerConnectionCache implements Listener {
      * @return the PlayerConnection of the specified {@link Player}
      */
     public Object getConnection(Player player) {
-        Object connection = cache.get(player);
-        if (connection == null) {
-            connection = ReflectionUtils.getPlayerConnection(player);
-            if (player.isOnline())
-                cache.put(player, connection);
-        }
-        return connection;
+        CachedConnection cached = getCached(player);
+        return cached == null ? ReflectionUtils.getPlayerConnection(player) : cached.connection.get();
+    }
+    
+    /**
+     * Gets the netty Channel of the specified {@link Player} from
+     * the cache. If the cache doesn't contain the Channel yet it
+     * is retrieved together with the PlayerConnection.
+     *
+     * @param player the target {@link Player}
+     * @return the Channel of the specified {@link Player} or {@code null} if it can't be reached.
+     */
+    public Object getChannel(Player player) {
+        CachedConnection cached = getCached(player);
+        if (cached == null)
+            return ReflectionUtils.getChannel(ReflectionUtils.getPlayerConnection(player));
+        return cached.channel.get();
+    }
+    
+    /**
+     * Removes the specified {@link Player} from the cache.
+     *
+     * @param player the {@link Player} that should be removed
+     */
+    public void invalidate(Player player) {
+        cache.remove(player.getUniqueId());
+    }
+    
+    /**
+     * Gets the valid cache entry of the specified {@link Player} or creates
+     * a new one. Entries of a previous session of the same player or entries
+     * whose references were cleared are replaced.
+     *
+     * @param player the target {@link Player}
+     * @return the cache entry or {@code null} if the player isn't online.
+     */
+    private CachedConnection getCached(Player player) {
+        UUID uuid = player.getUniqueId();
+        CachedConnection cached = cache.get(uuid);
+        if (cached != null && cached.isValid(player))
+            return cached;
+        Object connection = ReflectionUtils.getPlayerConnection(player);
+        if (connection == null || !player.isOnline())
+            return null;
+        cached = new CachedConnection(player, connection, ReflectionUtils.getChannel(connection));
+        cache.put(uuid, cached);
+        return cached;
     }
     
     /**
@@ -89,7 +136,61 @@ public final class PlayerConnectionCache implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void handlePlayerQuit(PlayerQuitEvent event) {
-        cache.remove(event.getPlayer());
+        invalidate(event.getPlayer());
+    }
+    
+    /**
+     * Removes a kicked player from the {@link #cache}.
+     *
+     * @param event The {@link PlayerKickEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void handlePlayerKick(PlayerKickEvent event) {
+        invalidate(event.getPlayer());
+    }
+    
+    /**
+     * A cache entry holding weak references to a {@link Player}, its
+     * PlayerConnection and its netty Channel.
+     */
+    private static final class CachedConnection {
+        
+        /**
+         * The {@link Player} the entry belongs to.
+         */
+        private final WeakReference<Player> player;
+        /**
+         * The PlayerConnection of the {@link #player}.
+         */
+        private final WeakReference<Object> connection;
+        /**
+         * The netty Channel of the {@link #player}.
+         */
+        private final WeakReference<Object> channel;
+        
+        /**
+         * Creates a new {@link CachedConnection}.
+         *
+         * @param player     the {@link Player} the entry belongs to
+         * @param connection the PlayerConnection of the player
+         * @param channel    the netty Channel of the player
+         */
+        private CachedConnection(Player player, Object connection, Object channel) {
+            this.player = new WeakReference<>(player);
+            this.connection = new WeakReference<>(connection);
+            this.channel = new WeakReference<>(channel);
+        }
+        
+        /**
+         * Checks if the entry still belongs to the given {@link Player}
+         * instance and the PlayerConnection hasn't been collected.
+         *
+         * @param player the {@link Player} that should be checked
+         * @return {@code true} if the entry can be used for the player
+         */
+        private boolean isValid(Player player) {
+            return this.player.get() == player && connection.get() != null;
+        }
     }
     
-}
\ No newline at end of file
+}
@@ -0,0 +1,308 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A registry holding an immutable snapshot of the players in each world.
+ * The snapshots are copy-on-write arrays that are only republished when a
+ * player joins, quits or changes the world. Reading a snapshot therefore
+ * doesn't allocate and is safe from any thread.
+ *
+ * @author ByteZ
+ */
+public final class RecipientRegistry implements Listener {
+    
+    /**
+     * Singleton instance of the {@link RecipientRegistry}
+     */
+    private static final RecipientRegistry INSTANCE = new RecipientRegistry();
+    
+    /**
+     * An empty snapshot used for worlds without players.
+     */
+    private static final Snapshot EMPTY = new Snapshot(new Player[0]);
+    
+    /**
+     * The current snapshots of all worlds with players.
+     */
+    private final Map<UUID, Snapshot> snapshots = new ConcurrentHashMap<>();
+    /**
+     * Whether the listener has been registered and online players have been added.
+     */
+    private volatile boolean initialized;
+    /**
+     * Incremented every time the audience of the server changes.
+     */
+    private final AtomicLong generation = new AtomicLong();
+    
+    /**
+     * Private constructor because this is a singleton class.
+     */
+    private RecipientRegistry() {
+    }
+    
+    /**
+     * Get the singleton instance of the {@link RecipientRegistry}. The registry
+     * is initialized by {@link ReflectionUtils} as soon as the plugin of
+     * ParticleLib is known. Until then, snapshots are created on every call.
+     *
+     * @return the singleton instance of the {@link RecipientRegistry}
+     */
+    public static RecipientRegistry getRegistry() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Registers the event listener and adds all online players. Bukkit only allows
+     * this on the main thread, so calls from other threads are rescheduled to it.
+     *
+     * @see ReflectionUtils#setPlugin(org.bukkit.plugin.Plugin)
+     */
+    synchronized void initialize() {
+        if (initialized || ReflectionUtils.getPlugin() == null)
+            return;
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(ReflectionUtils.getPlugin(), this::initialize);
+            return;
+        }
+        Bukkit.getServer().getPluginManager().registerEvents(this, ReflectionUtils.getPlugin());
+        for (World world : Bukkit.getWorlds())
+            snapshots.merge(world.getUID(), new Snapshot(world.getPlayers().toArray(new Player[0])), RecipientRegistry::union);
+        initialized = true;
+        invalidate();
+    }
+    
+    /**
+     * Merges two snapshots of the same world without duplicating players.
+     *
+     * @param current the current snapshot
+     * @param other   the snapshot that should be merged into the current one
+     * @return a snapshot containing the players of both snapshots
+     */
+    private static Snapshot union(Snapshot current, Snapshot other) {
+        Player[] players = Arrays.copyOf(current.players, current.players.length + other.players.length);
+        int size = current.players.length;
+        outer:
+        for (Player player : other.players) {
+            for (int i = 0; i < current.players.length; ++i)
+                if (current.players[i] == player)
+                    continue outer;
+            players[size++] = player;
+        }
+        return size == current.players.length ? current : new Snapshot(Arrays.copyOf(players, size));
+    }
+    
+    /**
+     * Gets the current snapshot of the players in the given {@link World}.
+     * The returned array must not be modified.
+     *
+     * @param world the target {@link World}
+     * @return an array of all {@link Player Players} in the world
+     */
+    public Player[] getPlayers(World world) {
+        return getSnapshot(world).players;
+    }
+    
+    /**
+     * Gets the current snapshot of the players in the given {@link World}
+     * as an unmodifiable {@link List}.
+     *
+     * @param world the target {@link World}
+     * @return an unmodifiable {@link List} of all {@link Player Players} in the world
+     */
+    public List<Player> getPlayerList(World world) {
+        return getSnapshot(world).list;
+    }
+    
+    /**
+     * Checks if the registry has been initialized. Until then, the audience
+     * generation isn't incremented when players join, quit or change the world.
+     *
+     * @return {@code true} if the registry has been initialized
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+    
+    /**
+     * Gets the current audience generation. The generation is incremented every time
+     * a player joins, quits or changes the world and every time {@link #invalidate()}
+     * is called. Caches of recipients can compare generations to check if they
+     * have to be re-evaluated.
+     *
+     * @return the current audience generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+    
+    /**
+     * Increments the audience generation, forcing all cached audiences to be re-evaluated.
+     * Should be called if properties used by audience filters (e.g. permissions) change.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+    
+    /**
+     * Gets the current snapshot of the given {@link World}. If the registry
+     * isn't initialized, a new snapshot is created from {@link World#getPlayers()}.
+     *
+     * @param world the target {@link World}
+     * @return the snapshot of the world
+     */
+    private Snapshot getSnapshot(World world) {
+        if (world == null)
+            return EMPTY;
+        if (!initialized)
+            return new Snapshot(world.getPlayers().toArray(new Player[0]));
+        Snapshot snapshot = snapshots.get(world.getUID());
+        return snapshot == null ? EMPTY : snapshot;
+    }
+    
+    /**
+     * Publishes a new snapshot of the given world containing the player.
+     *
+     * @param world  the {@link World} the player was added to
+     * @param player the {@link Player} that should be added
+     */
+    private void add(World world, Player player) {
+        snapshots.compute(world.getUID(), (uuid, snapshot) -> {
+            Player[] players = snapshot == null ? new Player[0] : snapshot.players;
+            for (Player p : players)
+                if (p == player)
+                    return snapshot;
+            Player[] copy = Arrays.copyOf(players, players.length + 1);
+            copy[players.length] = player;
+            return new Snapshot(copy);
+        });
+    }
+    
+    /**
+     * Publishes new snapshots without the given player for every world that contains it.
+     *
+     * @param player the {@link Player} that should be removed
+     */
+    private void remove(Player player) {
+        for (UUID world : snapshots.keySet()) {
+            snapshots.computeIfPresent(world, (uuid, snapshot) -> {
+                Player[] players = snapshot.players;
+                for (int i = 0; i < players.length; ++i) {
+                    if (players[i] != player)
+                        continue;
+                    if (players.length == 1)
+                        return null;
+                    Player[] copy = new Player[players.length - 1];
+                    System.arraycopy(players, 0, copy, 0, i);
+                    System.arraycopy(players, i + 1, copy, i, players.length - i - 1);
+                    return new Snapshot(copy);
+                }
+                return snapshot;
+            });
+        }
+    }
+    
+    /**
+     * Adds a joining player to the snapshot of their world.
+     *
+     * @param event The {@link PlayerJoinEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerJoin(PlayerJoinEvent event) {
+        add(event.getPlayer().getWorld(), event.getPlayer());
+        invalidate();
+    }
+    
+    /**
+     * Removes a leaving player from all snapshots. The server only removes the player
+     * from its player list after this event, so caches resolving players through
+     * {@link Bukkit#getPlayer(UUID)} in the meantime could still see them. The
+     * generation is therefore incremented again on the next tick.
+     *
+     * @param event The {@link PlayerQuitEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerQuit(PlayerQuitEvent event) {
+        remove(event.getPlayer());
+        invalidate();
+        Bukkit.getScheduler().runTask(ReflectionUtils.getPlugin(), this::invalidate);
+    }
+    
+    /**
+     * Moves a player to the snapshot of their new world.
+     *
+     * @param event The {@link PlayerChangedWorldEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerChangedWorld(PlayerChangedWorldEvent event) {
+        remove(event.getPlayer());
+        add(event.getPlayer().getWorld(), event.getPlayer());
+        invalidate();
+    }
+    
+    /**
+     * An immutable snapshot of the players in a world.
+     */
+    private static final class Snapshot {
+        
+        /**
+         * The players in the world.
+         */
+        private final Player[] players;
+        /**
+         * An unmodifiable {@link List} view of the {@link #players}.
+         */
+        private final List<Player> list;
+        
+        /**
+         * Creates a new {@link Snapshot}.
+         *
+         * @param players the players in the world
+         */
+        private Snapshot(Player[] players) {
+            this.players = players;
+            this.list = Collections.unmodifiableList(Arrays.asList(players));
+        }
+    }
+    
+}
@@ -31,13 +31,19 @@ import org.bukkit.event.Listener;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 import xyz.xenondevs.particle.ParticleConstants;
+import xyz.xenondevs.particle.metrics.ParticleEvents;
+import xyz.xenondevs.particle.metrics.ParticleMetrics;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URISyntaxException;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -111,6 +117,8 @@ public final class ReflectionUtils {
         CRAFT_BUKKIT_PACKAGE_PATH = "org.bukkit.craftbukkit." + version;
         plugin = readDeclaredField(PLUGIN_CLASS_LOADER_PLUGIN_FIELD, ReflectionUtils.class.getClassLoader());
         PLAYER_CONNECTION_CACHE = new PlayerConnectionCache();
+        RecipientRegistry.getRegistry().initialize();
+        SpatialPlayerIndex.getIndex().initialize();
         try {
             zipFile = new ZipFile(ReflectionUtils.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath());
         } catch (IOException | URISyntaxException ex) {
@@ -139,8 +147,12 @@ public final class ReflectionUtils {
     public static void setPlugin(Plugin plugin) {
         boolean wasNull = ReflectionUtils.plugin == null;
         ReflectionUtils.plugin = plugin;
-        if (wasNull)
+        if (wasNull) {
             PLAYER_CONNECTION_CACHE.registerListener();
+            RecipientRegistry.getRegistry().initialize();
+            SpatialPlayerIndex.getIndex().initialize();
+        }
+        ParticleMetrics.getMetrics().registerMBean();
     }
     
     /**
@@ -151,11 +163,15 @@ public final class ReflectionUtils {
      * @return the class. If the class isn't found null
      */
     public static Class<?> getClassSafe(String path) {
+        Object event = ParticleEvents.beginReflectionResolve();
+        Class<?> clazz;
         try {
-            return Class.forName(path);
+            clazz = Class.forName(path);
         } catch (Exception ex) {
-            return null;
+            clazz = null;
         }
+        ParticleEvents.commitReflectionResolve(event, "class", null, path, clazz != null);
+        return clazz;
     }
     
     /**
@@ -216,11 +232,36 @@ public final class ReflectionUtils {
      * @return if found the target {@link Method}. If not found null.
      */
     public static Method getMethodOrNull(Class targetClass, String methodName, Class<?>... parameterTypes) {
+        Object event = ParticleEvents.beginReflectionResolve();
+        Method method;
         try {
-            return targetClass.getMethod(methodName, parameterTypes);
+            method = targetClass.getMethod(methodName, parameterTypes);
         } catch (Exception ex) {
-            return null;
+            method = null;
+        }
+        ParticleEvents.commitReflectionResolve(event, "method", targetClass, methodName, method != null);
+        return method;
+    }
+    
+    /**
+     * Gets a declared method and makes it accessible without throwing exceptions
+     *
+     * @param targetClass    the {@link Class} the {@link Method} is in
+     * @param methodName     the name of the target {@link Method}
+     * @param parameterTypes the parameterTypes of the {@link Method}
+     * @return if found the target {@link Method}. If not found null.
+     */
+    public static Method getDeclaredMethodOrNull(Class targetClass, String methodName, Class<?>... parameterTypes) {
+        Object event = ParticleEvents.beginReflectionResolve();
+        Method method;
+        try {
+            method = targetClass.getDeclaredMethod(methodName, parameterTypes);
+            method.setAccessible(true);
+        } catch (Exception ex) {
+            method = null;
         }
+        ParticleEvents.commitReflectionResolve(event, "method", targetClass, methodName, method != null);
+        return method;
     }
     
     /**
@@ -232,11 +273,39 @@ public final class ReflectionUtils {
      * @return if found the target {@link Field}. If not found null.
      */
     public static Field getFieldOrNull(Class targetClass, String fieldName, boolean declared) {
+        Object event = ParticleEvents.beginReflectionResolve();
+        Field field;
         try {
-            return declared ? targetClass.getDeclaredField(fieldName) : targetClass.getField(fieldName);
+            field = declared ? targetClass.getDeclaredField(fieldName) : targetClass.getField(fieldName);
         } catch (Exception ex) {
+            field = null;
+        }
+        ParticleEvents.commitReflectionResolve(event, "field", targetClass, fieldName, field != null);
+        return field;
+    }
+    
+    /**
+     * Gets the first declared {@link Field} of the given type and makes it accessible.
+     * Used for fields whose obfuscated name changes between versions while
+     * the type stays the same.
+     *
+     * @param targetClass the {@link Class} the {@link Field} is in
+     * @param fieldType   the type of the target {@link Field}
+     * @return if found the target {@link Field}. If not found null.
+     */
+    public static Field getFieldByTypeOrNull(Class targetClass, Class fieldType) {
+        if (targetClass == null || fieldType == null)
             return null;
+        try {
+            for (Field field : targetClass.getDeclaredFields()) {
+                if (fieldType.isAssignableFrom(field.getType())) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        } catch (Exception ignored) {
         }
+        return null;
     }
     
     /**
@@ -247,8 +316,44 @@ public final class ReflectionUtils {
      * @return if found the target {@link Constructor}. If not found null.
      */
     public static Constructor getConstructorOrNull(Class targetClass, Class... parameterTypes) {
+        Object event = ParticleEvents.beginReflectionResolve();
+        Constructor constructor;
         try {
-            return targetClass.getConstructor(parameterTypes);
+            constructor = targetClass.getConstructor(parameterTypes);
+        } catch (Exception ex) {
+            constructor = null;
+        }
+        ParticleEvents.commitReflectionResolve(event, "constructor", targetClass, "<init>", constructor != null);
+        return constructor;
+    }
+    
+    /**
+     * Unreflects a constructor into a {@link MethodHandle} without throwing exceptions
+     *
+     * @param constructor the {@link Constructor} that should be unreflected
+     * @return the {@link MethodHandle} of the {@link Constructor}. If the constructor is {@code null} or inaccessible null.
+     */
+    public static MethodHandle getConstructorHandleOrNull(Constructor constructor) {
+        if (constructor == null)
+            return null;
+        try {
+            return MethodHandles.lookup().unreflectConstructor(constructor);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Unreflects a method into a {@link MethodHandle} without throwing exceptions
+     *
+     * @param method the {@link Method} that should be unreflected
+     * @return the {@link MethodHandle} of the {@link Method}. If the method is {@code null} or inaccessible null.
+     */
+    public static MethodHandle getMethodHandleOrNull(Method method) {
+        if (method == null)
+            return null;
+        try {
+            return MethodHandles.lookup().unreflect(method);
         } catch (Exception ex) {
             return null;
         }
@@ -524,7 +629,229 @@ public final class ReflectionUtils {
         try {
             Object connection = PLAYER_CONNECTION_CACHE.getConnection(player);
             ParticleConstants.PLAYER_CONNECTION_SEND_PACKET_METHOD.invoke(connection, packet);
+            ParticleMetrics.getMetrics().recordSent(1);
         } catch (Exception ignored) {
+            ParticleMetrics.getMetrics().recordSendFailure();
+        }
+    }
+    
+    /**
+     * Gets the netty Channel of a {@link Player} from the {@link #PLAYER_CONNECTION_CACHE}.
+     *
+     * @param player the target {@link Player}
+     * @return the Channel of the specified {@link Player} or {@code null} if it can't be reached.
+     */
+    public static Object getPlayerChannel(Player player) {
+        return PLAYER_CONNECTION_CACHE.getChannel(player);
+    }
+    
+    /**
+     * Gets the netty Channel of a PlayerConnection
+     *
+     * @param connection the PlayerConnection
+     * @return the Channel of the specified PlayerConnection or {@code null} if it can't be reached.
+     */
+    public static Object getChannel(Object connection) {
+        Object networkManager = readField(ParticleConstants.PLAYER_CONNECTION_NETWORK_MANAGER_FIELD, connection);
+        return readField(ParticleConstants.NETWORK_MANAGER_CHANNEL_FIELD, networkManager);
+    }
+    
+    /**
+     * Gets the encoder handler in the pipeline of the given Channel.
+     *
+     * @param channel the target Channel
+     * @return the encoder or {@code null} if it can't be reached.
+     */
+    public static Object getPacketEncoder(Object channel) {
+        if (channel == null)
+            return null;
+        try {
+            Object pipeline = ParticleConstants.CHANNEL_PIPELINE_METHOD.invoke(channel);
+            Object context = ParticleConstants.CHANNEL_PIPELINE_CONTEXT_METHOD.invoke(pipeline, "encoder");
+            return context == null ? null : ParticleConstants.CHANNEL_HANDLER_CONTEXT_HANDLER_METHOD.invoke(context);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Encodes a packet into a ByteBuf using the PacketEncoder in the pipeline of
+     * the given Channel. The ByteBuf contains the packet id and the packet data, but
+     * isn't framed, compressed or encrypted yet. Those steps are handled by the
+     * pipeline of each Channel the buffer is written to. Since the encoder isn't
+     * thread-safe, this method should only be called on the event loop of the Channel.
+     *
+     * @param channel the Channel whose encoder should be used
+     * @param packet  the packet that should be encoded
+     * @return the encoded ByteBuf or {@code null} if the packet couldn't be encoded.
+     * The caller is responsible for releasing the buffer.
+     * @see #writeEncodedPackets(Object[], Object, IntConsumer)
+     */
+    public static Object encodePacket(Object channel, Object packet) {
+        if (channel == null || ParticleConstants.PACKET_ENCODER_ENCODE_METHOD == null)
+            return null;
+        Object buffer = null;
+        try {
+            Object pipeline = ParticleConstants.CHANNEL_PIPELINE_METHOD.invoke(channel);
+            Object context = ParticleConstants.CHANNEL_PIPELINE_CONTEXT_METHOD.invoke(pipeline, "encoder");
+            if (context == null)
+                return null;
+            Object encoder = ParticleConstants.CHANNEL_HANDLER_CONTEXT_HANDLER_METHOD.invoke(context);
+            if (!ParticleConstants.PACKET_ENCODER_CLASS.isInstance(encoder))
+                return null;
+            buffer = ParticleConstants.BYTE_BUF_ALLOCATOR_BUFFER_METHOD.invoke(ParticleConstants.CHANNEL_ALLOC_METHOD.invoke(channel));
+            ParticleConstants.PACKET_ENCODER_ENCODE_METHOD.invoke(encoder, context, packet, buffer);
+            return buffer;
+        } catch (Exception ex) {
+            releaseBuffer(buffer);
+            return null;
+        }
+    }
+    
+    /**
+     * Encodes a packet once on the event loop of the first Channel and writes the encoded
+     * buffer to all given Channels. All Channels must use the same kind of encoder (see
+     * {@link #getPacketEncoder(Object)}), otherwise they receive bytes their pipeline doesn't
+     * expect. The encoding and the writes are executed asynchronously. If the packet can't
+     * be encoded or written to a Channel, the fallback is called with the index of that Channel
+     * on the event loop.
+     * <p>
+     * <b>Note:</b> Since the packet is only written once the event loop of the first Channel
+     * runs the task, it can arrive after packets that the calling thread sends to the same
+     * players afterwards via their PlayerConnection. The same applies to packets sent by the
+     * fallback, which runs on the event loop of the first Channel and reaches the other
+     * Channels through their own event loops. Only use this method for packets whose order
+     * relative to other packets doesn't matter, such as particles.
+     *
+     * @param channels the target Channels
+     * @param packet   the packet that should be encoded
+     * @param fallback called with the index of every Channel that didn't receive the buffer
+     * @return {@code true} if the task was scheduled on the event loop of the first Channel.
+     */
+    public static boolean writeEncodedPackets(Object[] channels, Object packet, IntConsumer fallback) {
+        if (channels.length == 0 || channels[0] == null || ParticleConstants.CHANNEL_EVENT_LOOP_METHOD == null)
+            return false;
+        try {
+            Executor eventLoop = (Executor) ParticleConstants.CHANNEL_EVENT_LOOP_METHOD.invoke(channels[0]);
+            eventLoop.execute(() -> {
+                Object buffer = encodePacket(channels[0], packet);
+                try {
+                    int bytes = getReadableBytes(buffer);
+                    long written = 0;
+                    for (int i = 0; i < channels.length; ++i) {
+                        if (writeEncodedPacket(channels[i], buffer))
+                            written += bytes;
+                        else
+                            fallback.accept(i);
+                    }
+                    ParticleMetrics.getMetrics().recordBytes(written);
+                } finally {
+                    releaseBuffer(buffer);
+                }
+            });
+            return true;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+    
+    /**
+     * Writes a retained duplicate of an encoded ByteBuf to the given Channel and flushes it.
+     * The duplicate shares the content of the buffer, so no data is copied.
+     *
+     * @param channel the target Channel
+     * @param buffer  the encoded ByteBuf
+     * @return {@code true} if the buffer was written to the Channel.
+     * @see #encodePacket(Object, Object)
+     */
+    public static boolean writeEncodedPacket(Object channel, Object buffer) {
+        if (channel == null || buffer == null)
+            return false;
+        Object duplicate = null;
+        try {
+            duplicate = ParticleConstants.BYTE_BUF_RETAINED_DUPLICATE_METHOD != null
+                ? ParticleConstants.BYTE_BUF_RETAINED_DUPLICATE_METHOD.invoke(buffer)
+                : ParticleConstants.BYTE_BUF_RETAIN_METHOD.invoke(ParticleConstants.BYTE_BUF_DUPLICATE_METHOD.invoke(buffer));
+            ParticleConstants.CHANNEL_WRITE_AND_FLUSH_METHOD.invoke(channel, duplicate);
+            ParticleMetrics.getMetrics().recordSent(1);
+            return true;
+        } catch (Exception ex) {
+            releaseBuffer(duplicate);
+            return false;
+        }
+    }
+    
+    /**
+     * Writes all given packets to a Channel and flushes it once. The writes are
+     * executed as a single task on the event loop of the Channel, so the packets
+     * are neither split up by other writes nor flushed individually.
+     * <p>
+     * <b>Note:</b> The packets are written to the Channel directly and bypass
+     * NetworkManager#sendPacket, so hooks on the PlayerConnection or NetworkManager
+     * won't see them. Handlers in the netty pipeline still do.
+     *
+     * @param channel the target Channel
+     * @param packets the packets that should be written
+     * @return {@code true} if the task was scheduled on the event loop of the Channel.
+     */
+    public static boolean writePackets(Object channel, Object[] packets) {
+        if (channel == null || ParticleConstants.CHANNEL_EVENT_LOOP_METHOD == null)
+            return false;
+        try {
+            Executor eventLoop = (Executor) ParticleConstants.CHANNEL_EVENT_LOOP_METHOD.invoke(channel);
+            eventLoop.execute(() -> {
+                ParticleMetrics metrics = ParticleMetrics.getMetrics();
+                int sent = 0;
+                try {
+                    for (Object packet : packets) {
+                        try {
+                            ParticleConstants.CHANNEL_WRITE_METHOD.invoke(channel, packet);
+                            ++sent;
+                        } catch (Exception ignored) {// Ignored in case non packet objects are in the array
+                            metrics.recordSendFailure();
+                        }
+                    }
+                } finally {
+                    metrics.recordSent(sent);
+                    try {
+                        ParticleConstants.CHANNEL_FLUSH_METHOD.invoke(channel);
+                    } catch (Exception ignored) {
+                    }
+                }
+            });
+            return true;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+    
+    /**
+     * Releases a ByteBuf.
+     *
+     * @param buffer the ByteBuf that should be released
+     */
+    public static void releaseBuffer(Object buffer) {
+        if (buffer == null)
+            return;
+        try {
+            ParticleConstants.BYTE_BUF_RELEASE_METHOD.invoke(buffer);
+        } catch (Exception ignored) {
+        }
+    }
+    
+    /**
+     * Gets the amount of readable bytes of a ByteBuf.
+     *
+     * @param buffer the ByteBuf
+     * @return the amount of readable bytes or {@code 0} if the buffer is {@code null} or can't be read.
+     */
+    public static int getReadableBytes(Object buffer) {
+        if (buffer == null)
+            return 0;
+        try {
+            return (int) ParticleConstants.BYTE_BUF_READABLE_BYTES_METHOD.invoke(buffer);
+        } catch (Exception ex) {
+            return 0;
         }
     }
     
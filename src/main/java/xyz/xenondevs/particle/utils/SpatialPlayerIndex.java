@@ -0,0 +1,430 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 ByteZ1337
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.xenondevs.particle.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A spatial index of all online players. Players are sorted into a grid of
+ * chunk sized cells per world, which allows range-limited displays to only look
+ * at players in nearby cells instead of every player on the server.
+ * <p>
+ * The index is kept up to date by join, quit, move, vehicle move, teleport,
+ * respawn and world change events. It can be queried from any thread.
+ *
+ * @author ByteZ
+ */
+public final class SpatialPlayerIndex implements Listener {
+    
+    /**
+     * Singleton instance of the {@link SpatialPlayerIndex}
+     */
+    private static final SpatialPlayerIndex INSTANCE = new SpatialPlayerIndex();
+    
+    /**
+     * The amount of bits to shift a block coordinate to get the cell coordinate.
+     * A shift of 4 results in chunk sized cells.
+     */
+    private static final int CELL_SHIFT = 4;
+    
+    /**
+     * The cells of each world. The key of a cell is built using {@link #getCellKey(int, int)}.
+     */
+    private final Map<UUID, Map<Long, Set<TrackedPlayer>>> worlds = new ConcurrentHashMap<>();
+    /**
+     * The tracking entries of all players in the index.
+     */
+    private final Map<UUID, TrackedPlayer> players = new ConcurrentHashMap<>();
+    /**
+     * Whether the listener has been registered and online players have been added.
+     */
+    private volatile boolean initialized;
+    
+    /**
+     * Private constructor because this is a singleton class.
+     */
+    private SpatialPlayerIndex() {
+    }
+    
+    /**
+     * Get the singleton instance of the {@link SpatialPlayerIndex}. The index
+     * is initialized by {@link ReflectionUtils} as soon as the plugin of
+     * ParticleLib is known.
+     *
+     * @return the singleton instance of the {@link SpatialPlayerIndex}
+     */
+    public static SpatialPlayerIndex getIndex() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Registers the event listener and adds all online players. If called from
+     * another thread, the initialization is scheduled on the main thread.
+     */
+    synchronized void initialize() {
+        if (initialized || ReflectionUtils.getPlugin() == null)
+            return;
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(ReflectionUtils.getPlugin(), this::initialize);
+            return;
+        }
+        Bukkit.getServer().getPluginManager().registerEvents(this, ReflectionUtils.getPlugin());
+        for (Player player : Bukkit.getOnlinePlayers())
+            update(player, player.getLocation());
+        initialized = true;
+    }
+    
+    /**
+     * Gets all players in the given radius around a {@link Location}.
+     *
+     * @param center the center of the search
+     * @param radius the radius of the search
+     * @return a {@link List} of {@link Player Players} in the radius
+     * @throws IllegalArgumentException if the radius isn't finite
+     */
+    public List<Player> getPlayersInRadius(Location center, double radius) {
+        List<Player> result = new ArrayList<>();
+        forEachInRadius(center.getWorld(), center.getX(), center.getY(), center.getZ(), radius, result::add);
+        return result;
+    }
+    
+    /**
+     * Calls the given {@link Consumer} for every player in the given radius
+     * around the specified coordinates. Only the cells intersecting the
+     * radius are visited. If the radius covers more cells than the world
+     * has occupied cells, the occupied cells are visited instead.
+     *
+     * @param world  the {@link World} of the coordinates
+     * @param x      the x coordinate of the center
+     * @param y      the y coordinate of the center
+     * @param z      the z coordinate of the center
+     * @param radius the radius of the search
+     * @param action the {@link Consumer} that should be called for each {@link Player}
+     * @throws IllegalArgumentException if the radius isn't finite
+     */
+    public void forEachInRadius(World world, double x, double y, double z, double radius, Consumer<Player> action) {
+        if (Double.isNaN(radius) || Double.isInfinite(radius))
+            throw new IllegalArgumentException("radius must be finite");
+        if (world == null || radius < 0)
+            return;
+        Map<Long, Set<TrackedPlayer>> cells = worlds.get(world.getUID());
+        if (cells == null)
+            return;
+        double radiusSquared = radius * radius;
+        long minX = (long) Math.floor(x - radius) >> CELL_SHIFT;
+        long maxX = (long) Math.floor(x + radius) >> CELL_SHIFT;
+        long minZ = (long) Math.floor(z - radius) >> CELL_SHIFT;
+        long maxZ = (long) Math.floor(z + radius) >> CELL_SHIFT;
+        if (maxX < Integer.MIN_VALUE || minX > Integer.MAX_VALUE || maxZ < Integer.MIN_VALUE || minZ > Integer.MAX_VALUE)
+            return;
+        minX = Math.max(minX, Integer.MIN_VALUE);
+        maxX = Math.min(maxX, Integer.MAX_VALUE);
+        minZ = Math.max(minZ, Integer.MIN_VALUE);
+        maxZ = Math.min(maxZ, Integer.MAX_VALUE);
+        if ((maxX - minX + 1.0) * (maxZ - minZ + 1.0) > cells.size()) {
+            for (Map.Entry<Long, Set<TrackedPlayer>> entry : cells.entrySet()) {
+                long key = entry.getKey();
+                int cellX = (int) (key >> 32);
+                int cellZ = (int) key;
+                if (cellX >= minX && cellX <= maxX && cellZ >= minZ && cellZ <= maxZ)
+                    acceptInRadius(entry.getValue(), x, y, z, radiusSquared, action);
+            }
+            return;
+        }
+        for (long cellX = minX; cellX <= maxX; ++cellX) {
+            for (long cellZ = minZ; cellZ <= maxZ; ++cellZ) {
+                Set<TrackedPlayer> cell = cells.get(getCellKey((int) cellX, (int) cellZ));
+                if (cell != null)
+                    acceptInRadius(cell, x, y, z, radiusSquared, action);
+            }
+        }
+    }
+    
+    /**
+     * Calls the given {@link Consumer} for every player of a cell that is in the radius.
+     *
+     * @param cell          the players of the cell
+     * @param x             the x coordinate of the center
+     * @param y             the y coordinate of the center
+     * @param z             the z coordinate of the center
+     * @param radiusSquared the squared radius of the search
+     * @param action        the {@link Consumer} that should be called for each {@link Player}
+     */
+    private static void acceptInRadius(Set<TrackedPlayer> cell, double x, double y, double z, double radiusSquared, Consumer<Player> action) {
+        for (TrackedPlayer tracked : cell) {
+            double dx = tracked.x - x;
+            double dy = tracked.y - y;
+            double dz = tracked.z - z;
+            if (dx * dx + dy * dy + dz * dz <= radiusSquared)
+                action.accept(tracked.player);
+        }
+    }
+    
+    /**
+     * Updates the position of a {@link Player} in the index. The player only
+     * moves between cells if the cell or the world changed.
+     *
+     * @param player   the {@link Player} that should be updated
+     * @param location the new {@link Location} of the player
+     */
+    private void update(Player player, Location location) {
+        if (location == null || location.getWorld() == null)
+            return;
+        UUID world = location.getWorld().getUID();
+        long cellKey = getCellKey(location.getBlockX() >> CELL_SHIFT, location.getBlockZ() >> CELL_SHIFT);
+        TrackedPlayer tracked = players.get(player.getUniqueId());
+        if (tracked == null || tracked.player != player) {
+            if (tracked != null)
+                removeFromCell(tracked);
+            tracked = new TrackedPlayer(player);
+            players.put(player.getUniqueId(), tracked);
+        } else if (world.equals(tracked.world) && tracked.cellKey == cellKey) {
+            tracked.setPosition(location);
+            return;
+        } else removeFromCell(tracked);
+        tracked.world = world;
+        tracked.cellKey = cellKey;
+        tracked.setPosition(location);
+        worlds.computeIfAbsent(world, uuid -> new ConcurrentHashMap<>())
+            .computeIfAbsent(cellKey, key -> ConcurrentHashMap.newKeySet())
+            .add(tracked);
+    }
+    
+    /**
+     * Removes a {@link Player} from the index.
+     *
+     * @param player the {@link Player} that should be removed
+     */
+    private void remove(Player player) {
+        TrackedPlayer tracked = players.remove(player.getUniqueId());
+        if (tracked != null)
+            removeFromCell(tracked);
+    }
+    
+    /**
+     * Removes a tracking entry from its current cell. Empty cells are removed.
+     *
+     * @param tracked the entry that should be removed
+     */
+    private void removeFromCell(TrackedPlayer tracked) {
+        if (tracked.world == null)
+            return;
+        Map<Long, Set<TrackedPlayer>> cells = worlds.get(tracked.world);
+        if (cells == null)
+            return;
+        cells.computeIfPresent(tracked.cellKey, (key, cell) -> {
+            cell.remove(tracked);
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+    
+    /**
+     * Combines the coordinates of a cell into a single key.
+     *
+     * @param cellX the x coordinate of the cell
+     * @param cellZ the z coordinate of the cell
+     * @return the key of the cell
+     */
+    private static long getCellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Adds a joining player to the index.
+     *
+     * @param event The {@link PlayerJoinEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+    
+    /**
+     * Removes a leaving player from the index.
+     *
+     * @param event The {@link PlayerQuitEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerQuit(PlayerQuitEvent event) {
+        remove(event.getPlayer());
+    }
+    
+    /**
+     * Updates the position of a moving player.
+     *
+     * @param event The {@link PlayerMoveEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void handlePlayerMove(PlayerMoveEvent event) {
+        update(event.getPlayer(), event.getTo());
+    }
+    
+    /**
+     * Updates the positions of the players riding a moving vehicle. The
+     * PlayerMoveEvent isn't called for passengers.
+     *
+     * @param event The {@link VehicleMoveEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handleVehicleMove(VehicleMoveEvent event) {
+        updatePassengers(event.getVehicle(), event.getTo());
+    }
+    
+    /**
+     * Updates the positions of all players riding the given {@link Entity},
+     * including players riding other passengers.
+     *
+     * @param vehicle  the {@link Entity} whose passengers should be updated
+     * @param location the new {@link Location} of the vehicle
+     */
+    @SuppressWarnings("deprecation")
+    private void updatePassengers(Entity vehicle, Location location) {
+        if (ReflectionUtils.MINECRAFT_VERSION < 11.2) {
+            Entity passenger = vehicle.getPassenger();
+            if (passenger != null)
+                updatePassenger(passenger, location);
+            return;
+        }
+        for (Entity passenger : vehicle.getPassengers())
+            updatePassenger(passenger, location);
+    }
+    
+    /**
+     * Updates the position of a single passenger and its own passengers.
+     *
+     * @param passenger the passenger {@link Entity}
+     * @param location  the new {@link Location} of the vehicle
+     */
+    private void updatePassenger(Entity passenger, Location location) {
+        if (passenger instanceof Player)
+            update((Player) passenger, location);
+        updatePassengers(passenger, location);
+    }
+    
+    /**
+     * Updates the position of a teleporting player. The PlayerTeleportEvent has its
+     * own HandlerList, so it isn't received by {@link #handlePlayerMove(PlayerMoveEvent)}.
+     *
+     * @param event The {@link PlayerTeleportEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void handlePlayerTeleport(PlayerTeleportEvent event) {
+        update(event.getPlayer(), event.getTo());
+    }
+    
+    /**
+     * Updates the position of a respawning player.
+     *
+     * @param event The {@link PlayerRespawnEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+    
+    /**
+     * Moves a player to the cells of the new world.
+     *
+     * @param event The {@link PlayerChangedWorldEvent} that should be handled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handlePlayerChangedWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+    
+    /**
+     * The tracking entry of a single player.
+     */
+    private static final class TrackedPlayer {
+        
+        /**
+         * The tracked {@link Player}.
+         */
+        private final Player player;
+        /**
+         * The {@link UUID} of the world the player is in.
+         */
+        private volatile UUID world;
+        /**
+         * The key of the cell the player is in.
+         */
+        private volatile long cellKey;
+        /**
+         * The last known x coordinate of the player.
+         */
+        private volatile double x;
+        /**
+         * The last known y coordinate of the player.
+         */
+        private volatile double y;
+        /**
+         * The last known z coordinate of the player.
+         */
+        private volatile double z;
+        
+        /**
+         * Creates a new {@link TrackedPlayer}.
+         *
+         * @param player the tracked {@link Player}
+         */
+        private TrackedPlayer(Player player) {
+            this.player = player;
+        }
+        
+        /**
+         * Updates the last known coordinates of the player.
+         *
+         * @param location the new {@link Location} of the player
+         */
+        private void setPosition(Location location) {
+            x = location.getX();
+            y = location.getY();
+            z = location.getZ();
+        }
+    }
+    
+}